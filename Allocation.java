@@ -0,0 +1,199 @@
+import tester.*;
+import java.util.*;
+
+// How many bytes the hot paths may allocate: each step of a solver, and each
+// frame drawn once a maze's layers exist. Stepping and drawing happen every
+// tick, so anything they allocate is garbage made sixty times a second.
+// The budgets default to a little above what the code allocates now, and
+// can be lowered as the hot paths get leaner so they stay that way:
+//     java -Dmaze.stepBytes=0 -Dmaze.frameBytes=1024 ... tester.Main
+//         ExamplesAllocation
+class AllocationBudget {
+
+    static final String STEP_PROPERTY = "maze.stepBytes";
+    static final String FRAME_PROPERTY = "maze.frameBytes";
+    static final long DEFAULT_STEP_BYTES = 2048;
+    static final long DEFAULT_FRAME_BYTES = 16384;
+
+    long stepBytes; // The most bytes a solver step may allocate on average
+    long frameBytes; // The most bytes a frame may allocate on average
+
+    // Constructor
+    AllocationBudget(long stepBytes, long frameBytes) {
+        if (stepBytes < 0 || frameBytes < 0) {
+            throw new RuntimeException("Budgets can't be negative");
+        }
+        this.stepBytes = stepBytes;
+        this.frameBytes = frameBytes;
+    }
+
+    // The budgets given as system properties, or the defaults for any that
+    // were not given
+    static AllocationBudget fromProperties() {
+        return new AllocationBudget(
+            Long.getLong(AllocationBudget.STEP_PROPERTY,
+                AllocationBudget.DEFAULT_STEP_BYTES),
+            Long.getLong(AllocationBudget.FRAME_PROPERTY,
+                AllocationBudget.DEFAULT_FRAME_BYTES));
+    }
+
+    // Returns the average bytes allocated by each step the given solver
+    // takes until it can make no more progress, or -1 if the JVM does not
+    // count them. Growing a list shows up in the step that grows it, so the
+    // average, not the largest step, is what is held to the budget.
+    // EFFECT: Solves the given solver
+    static long bytesPerStep(ASolver s) {
+        long total = 0;
+        int steps = 0;
+        while (s.canStep()) {
+            long before = MemoryStats.allocatedBytes();
+            s.step();
+            long bytes = MemoryStats.allocatedSince(before);
+            if (bytes < 0) {
+                return -1;
+            }
+            total += bytes;
+            steps += 1;
+        }
+        return AllocationBudget.average(total, steps);
+    }
+
+    // Returns the average bytes allocated by drawing the given window each
+    // tick for the given number of ticks, or -1 if the JVM does not count
+    // them. The first frame builds the layers a maze is drawn on, so it is
+    // drawn before counting starts.
+    // EFFECT: Ticks the given window the given number of times
+    static long bytesPerFrame(MazeWorld w, int frames) {
+        w.makeScene();
+        long total = 0;
+        for (int i = 0; i < frames; i += 1) {
+            w.onTick();
+            long before = MemoryStats.allocatedBytes();
+            w.makeScene();
+            long bytes = MemoryStats.allocatedSince(before);
+            if (bytes < 0) {
+                return -1;
+            }
+            total += bytes;
+        }
+        return AllocationBudget.average(total, frames);
+    }
+
+    // The given total over the given count, rounded up
+    static long average(long total, int count) {
+        if (count == 0) {
+            return 0;
+        }
+        return (total + count - 1) / count;
+    }
+
+    // Returns the average bytes the given solver allocated per step
+    // EFFECT: Solves the given solver
+    // Throws an exception if that is over this budget
+    long checkSteps(ASolver s) {
+        long bytes = AllocationBudget.bytesPerStep(s);
+        AllocationBudget.check(s.getClass().getSimpleName() + " steps",
+            bytes, this.stepBytes);
+        return bytes;
+    }
+
+    // Returns the average bytes the given window allocated per frame
+    // EFFECT: Ticks the given window the given number of times
+    // Throws an exception if that is over this budget
+    long checkFrames(MazeWorld w, int frames) {
+        long bytes = AllocationBudget.bytesPerFrame(w, frames);
+        AllocationBudget.check("Frames", bytes, this.frameBytes);
+        return bytes;
+    }
+
+    // Throws an exception if the given bytes are over the given budget
+    static void check(String what, long bytes, long budget) {
+        if (bytes > budget) {
+            throw new RuntimeException(what + " allocated " + bytes
+                + " bytes each, over the budget of " + budget);
+        }
+    }
+}
+
+class ExamplesAllocation {
+
+    // The budgets this run is held to
+    AllocationBudget budget = AllocationBudget.fromProperties();
+
+    void testSolverSteps(Tester t) {
+        for (String name : MazeCli.SOLVERS) {
+            Maze m = new Maze(40, 30, 3);
+            m.initMaze();
+            ASolver s = MazeCli.newSolver(name, m);
+            t.checkExpect(this.budget.checkSteps(s) <= this.budget.stepBytes,
+                true);
+            t.checkExpect(s.solved, true);
+        }
+    }
+
+    void testFrames(Tester t) {
+        MazeWorld w = new MazeWorld(new Maze(40, 30, 3));
+        w.onKeyEvent("b");
+        t.checkExpect(this.budget.checkFrames(w, 50) <= this.budget.frameBytes,
+            true);
+
+        // Not the step colorer: it repaints every cell each time its
+        // rainbow stretches, which is a whole new layer, not a frame's worth
+        MazeWorld d = new MazeWorld(new Maze(40, 30, 3));
+        d.onKeyEvent("d");
+        t.checkExpect(this.budget.checkFrames(d, 50) <= this.budget.frameBytes,
+            true);
+    }
+
+    void testOverBudget(Tester t) {
+        Maze m = new Maze(20, 10, 3);
+        m.initMaze();
+        // A breadth-first solver boxes every node it reaches into its
+        // map of edges, so it does not fit in a budget of no bytes
+        String message = "";
+        try {
+            new AllocationBudget(0, 0).checkSteps(
+                new BFSSolver(m.mazeNodes.get(0)));
+        }
+        catch (RuntimeException e) {
+            message = e.getMessage();
+        }
+        t.checkExpect(message.startsWith("BFSSolver steps allocated "), true);
+        t.checkExpect(message.endsWith(" bytes each, over the budget of 0"),
+            true);
+
+        t.checkException(new RuntimeException(
+            "Frames allocated 20 bytes each, over the budget of 10"),
+            new AllocationBudget(0, 0), "check", "Frames", 20L, 10L);
+        t.checkConstructorException(
+            new RuntimeException("Budgets can't be negative"),
+            "AllocationBudget", -1L, 0L);
+    }
+
+    void testFastStepsAllocateNothing(Tester t) {
+        Maze m = new Maze(40, 30, 3);
+        m.initMaze();
+        FastBFSSolver f = new FastBFSSolver(m.mazeNodes.get(0),
+            m.mazeNodes.size());
+        // Only growing the frontier, or building the finished path on the
+        // last step, allocates anything
+        while (f.canStep()) {
+            int room = f.frontier.cells.length + f.frontier.nextCells.length;
+            long before = MemoryStats.allocatedBytes();
+            f.step();
+            long bytes = MemoryStats.allocatedSince(before);
+            boolean grew = room
+                != f.frontier.cells.length + f.frontier.nextCells.length;
+            if (!f.solved && !grew && bytes >= 0) {
+                t.checkExpect(bytes, 0L);
+            }
+        }
+        t.checkExpect(f.solved, true);
+    }
+
+    void testAverage(Tester t) {
+        t.checkExpect(AllocationBudget.average(10, 3), 4L);
+        t.checkExpect(AllocationBudget.average(9, 3), 3L);
+        t.checkExpect(AllocationBudget.average(0, 0), 0L);
+    }
+}
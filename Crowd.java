@@ -0,0 +1,369 @@
+import tester.*;
+import java.awt.Color;
+import java.io.*;
+import java.util.*;
+import java.util.stream.*;
+
+// Thousands to millions of agents loose in one maze at once, to see how a
+// maze's design holds up under a crowd. An agent is not an object but an
+// index into parallel arrays of primitives: the cell it is in, how it moves,
+// which way it faces, when it arrived, and its own random number state. So
+// a million agents are a handful of arrays, not a million Players each with
+// a visited list and a map. Each tick moves every agent one cell, in chunks
+// spread over every core; an agent only ever writes its own slots, and the
+// maze is a FrozenMaze that nothing writes to, so the chunks need no locks.
+// Agents that reach the end stay there. Drawn as how crowded each cell is,
+// not as the agents themselves.
+//     java -cp out:tester.jar:javalib.jar Crowd 200 150 1000000 5000
+//         crowd.png
+class Crowd {
+
+    static final byte RANDOM_WALK = 0; // Takes a random passage every tick
+    static final byte WALL_FOLLOWER = 1; // Keeps its right hand on the wall
+
+    // The four sides, clockwise, as Direction ordinals. A wall follower's
+    // heading is an index into this, so turning right is adding one.
+    static final int[] CLOCKWISE = { Direction.UP.ordinal(),
+        Direction.RIGHT.ordinal(), Direction.DOWN.ordinal(),
+        Direction.LEFT.ordinal() };
+    // The turns a wall follower tries, in order: right, ahead, left, back
+    static final int[] TURNS = { 1, 0, 3, 2 };
+
+    static final int CHUNK = 8192; // How many agents one thread moves at once
+
+    FrozenMaze maze; // The maze the agents are in
+    int size; // How many agents there are
+    int[] cell; // The cell each agent is in
+    byte[] policy; // How each agent moves
+    byte[] heading; // Which way each wall follower faces (see CLOCKWISE)
+    int[] arrivedAt; // The tick each agent reached the end, -1 if it hasn't
+    long[] rng; // Each agent's own random number state (never 0)
+    int ticks; // How many ticks have been run
+    int arrived; // How many agents have reached the end
+
+    // Constructor for the given number of agents at the start of the given
+    // maze, about the given fraction of them following walls and the rest
+    // walking at random. The same seed always makes the same crowd, which
+    // moves the same way however many threads move it.
+    Crowd(FrozenMaze maze, int size, double followers, long seed) {
+        if (size < 1) {
+            throw new RuntimeException("A crowd needs at least one agent");
+        }
+        if (!(followers >= 0 && followers <= 1)) {
+            throw new RuntimeException(
+                "Followers must be a fraction from 0 to 1");
+        }
+        this.maze = maze;
+        this.size = size;
+        this.cell = new int[size];
+        this.policy = new byte[size];
+        this.heading = new byte[size];
+        this.arrivedAt = new int[size];
+        this.rng = new long[size];
+        this.ticks = 0;
+        this.arrived = 0;
+
+        Random r = new Random(seed);
+        for (int i = 0; i < size; i += 1) {
+            this.cell[i] = maze.start;
+            if (r.nextDouble() < followers) {
+                this.policy[i] = Crowd.WALL_FOLLOWER;
+            }
+            else {
+                this.policy[i] = Crowd.RANDOM_WALK;
+            }
+            this.rng[i] = r.nextLong() | 1;
+            this.arrivedAt[i] = -1;
+            if (maze.start == maze.end) {
+                this.arrivedAt[i] = 0;
+                this.arrived += 1;
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 4 || args.length > 5) {
+            System.err.println("usage: Crowd WIDTH HEIGHT AGENTS TICKS [PNG]");
+            System.exit(2);
+            return;
+        }
+        Maze maze = new Maze((int) MazeCli.number(args[0]),
+            (int) MazeCli.number(args[1]), 1);
+        maze.initMaze();
+        Crowd crowd = new Crowd(maze.freeze(), (int) MazeCli.number(args[2]),
+            0.5, 1);
+        int ticks = (int) MazeCli.number(args[3]);
+
+        long start = System.nanoTime();
+        for (int i = 1; i <= ticks; i += 1) {
+            crowd.tick();
+            if (i % Math.max(1, ticks / 10) == 0 || i == ticks) {
+                System.out.println(crowd.summary() + " nanosPerTick="
+                    + (System.nanoTime() - start) / i);
+            }
+        }
+        if (args.length == 5) {
+            crowd.render(new HeadlessRenderer(maze, 1000, 1000),
+                Palette.RAINBOW).writePng(new File(args[4]));
+        }
+    }
+
+    // EFFECT: Moves every agent that hasn't arrived one cell, and counts
+    // the ones that arrive
+    void tick() {
+        int now = this.ticks + 1;
+        int chunks = (this.size + Crowd.CHUNK - 1) / Crowd.CHUNK;
+        this.arrived += IntStream.range(0, chunks).parallel()
+            .map(c -> this.move(c * Crowd.CHUNK,
+                Math.min(this.size, (c + 1) * Crowd.CHUNK), now))
+            .sum();
+        this.ticks = now;
+    }
+
+    // Moves the agents from the given index up to (not including) the
+    // other, as of the given tick, and returns how many of them arrived
+    // EFFECT: Changes those agents' slots, and only theirs
+    int move(int from, int to, int now) {
+        int arrivals = 0;
+        for (int i = from; i < to; i += 1) {
+            if (this.arrivedAt[i] >= 0) {
+                continue;
+            }
+            int next;
+            if (this.policy[i] == Crowd.WALL_FOLLOWER) {
+                next = this.follow(i);
+            }
+            else {
+                next = this.wander(i);
+            }
+            this.cell[i] = next;
+            if (next == this.maze.end) {
+                this.arrivedAt[i] = now;
+                arrivals += 1;
+            }
+        }
+        return arrivals;
+    }
+
+    // The cell the given random walker moves to: down one of the passages
+    // out of its cell, each as likely as the others
+    // EFFECT: Advances the agent's random numbers
+    int wander(int agent) {
+        int here = this.cell[agent];
+        int ways = this.maze.degree(here);
+        if (ways == 0) {
+            return here;
+        }
+        // xorshift: a few shifts per number, and no shared state
+        long x = this.rng[agent];
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        this.rng[agent] = x;
+        return this.maze.neighbor(here, (int) ((x >>> 1) % ways));
+    }
+
+    // The cell the given wall follower moves to: the first open side of its
+    // cell going right, ahead, left and back from the way it faces. In a
+    // maze (a tree) this walks every passage twice at most, so it always
+    // arrives.
+    // EFFECT: Turns the agent to face the way it moved
+    int follow(int agent) {
+        int here = this.cell[agent];
+        for (int turn : Crowd.TURNS) {
+            int h = (this.heading[agent] + turn) & 3;
+            int next = this.maze.toward(here, Crowd.CLOCKWISE[h]);
+            if (next >= 0) {
+                this.heading[agent] = (byte) h;
+                return next;
+            }
+        }
+        return here;
+    }
+
+    // How many agents are in each cell, by cell id
+    int[] density() {
+        int[] counts = new int[this.maze.cells()];
+        for (int i = 0; i < this.size; i += 1) {
+            counts[this.cell[i]] += 1;
+        }
+        return counts;
+    }
+
+    // How many agents moving the given way have arrived
+    int arrived(byte policy) {
+        int count = 0;
+        for (int i = 0; i < this.size; i += 1) {
+            if (this.policy[i] == policy && this.arrivedAt[i] >= 0) {
+                count += 1;
+            }
+        }
+        return count;
+    }
+
+    // Each occupied cell colored from the given palette by how many agents
+    // are in it, on a log scale so a few packed cells don't wash out the
+    // rest. Empty cells are left undrawn.
+    CellColors densityColors(Palette p) {
+        int[] counts = this.density();
+        int most = 0;
+        for (int c : counts) {
+            most = Math.max(most, c);
+        }
+
+        CellColors colors = new CellColors(this.maze.width, this.maze.height);
+        int max = Crowd.logScale(most);
+        for (int id = 0; id < counts.length; id += 1) {
+            if (counts[id] > 0) {
+                // Cell ids are laid out the way CellColors stores cells
+                colors.colors[id] = p.colorAt(Crowd.logScale(counts[id]), max)
+                    .getRGB();
+            }
+        }
+        return colors;
+    }
+
+    // The given count on a log scale, spread over enough steps to pick
+    // distinct colors
+    static int logScale(int count) {
+        return (int) Math.round(Math.log1p(count) * 256);
+    }
+
+    // Returns an image of how crowded each cell is, drawn by the given
+    // renderer (of the maze this crowd's snapshot was frozen from)
+    PixelBuffer render(HeadlessRenderer r, Palette p) {
+        return r.renderCells(this.densityColors(p));
+    }
+
+    // A line of key=value pairs describing where the crowd is now
+    String summary() {
+        int[] counts = this.density();
+        int busiest = 0;
+        for (int id = 1; id < counts.length; id += 1) {
+            if (counts[id] > counts[busiest]) {
+                busiest = id;
+            }
+        }
+        return "tick=" + this.ticks
+            + " agents=" + this.size
+            + " arrived=" + this.arrived
+            + " randomArrived=" + this.arrived(Crowd.RANDOM_WALK)
+            + " followersArrived=" + this.arrived(Crowd.WALL_FOLLOWER)
+            + " busiestCell=" + busiest
+            + " busiestCount=" + counts[busiest];
+    }
+}
+
+class ExamplesCrowd {
+
+    FrozenMaze maze(int width, int height, long seed) {
+        Maze m = new Maze(width, height, seed);
+        m.initMaze();
+        return m.freeze();
+    }
+
+    void testNewCrowd(Tester t) {
+        FrozenMaze f = this.maze(8, 6, 2);
+        Crowd c = new Crowd(f, 1000, 0.25, 3);
+        t.checkExpect(c.density()[f.start], 1000);
+        t.checkExpect(c.arrived, 0);
+        // About a quarter follow walls
+        int count = 0;
+        for (byte p : c.policy) {
+            if (p == Crowd.WALL_FOLLOWER) {
+                count += 1;
+            }
+        }
+        t.checkExpect(count > 180 && count < 320, true);
+        t.checkExpect(new Crowd(f, 10, 0, 3).policy, new byte[10]);
+
+        // In a maze of one cell, everyone starts at the end
+        Crowd alone = new Crowd(this.maze(1, 1, 1), 5, 0.5, 1);
+        t.checkExpect(alone.arrived, 5);
+        alone.tick();
+        t.checkExpect(alone.cell, new int[5]);
+
+        t.checkConstructorException(
+            new RuntimeException("A crowd needs at least one agent"),
+            "Crowd", f, 0, 0.5, 1L);
+        t.checkConstructorException(
+            new RuntimeException("Followers must be a fraction from 0 to 1"),
+            "Crowd", f, 10, 1.5, 1L);
+    }
+
+    void testRandomWalk(Tester t) {
+        FrozenMaze f = this.maze(8, 6, 2);
+        Crowd c = new Crowd(f, 500, 0, 4);
+        int[] before = c.cell.clone();
+        c.tick();
+
+        // Every agent moved down a passage, and none were lost
+        boolean moved = true;
+        for (int i = 0; i < c.size; i += 1) {
+            boolean joined = false;
+            for (int k = 0; k < f.degree(before[i]); k += 1) {
+                joined = joined || f.neighbor(before[i], k) == c.cell[i];
+            }
+            moved = moved && joined;
+        }
+        t.checkExpect(moved, true);
+        t.checkExpect(IntStream.of(c.density()).sum(), 500);
+        t.checkExpect(c.ticks, 1);
+    }
+
+    void testWallFollowers(Tester t) {
+        FrozenMaze f = this.maze(9, 7, 6);
+        Crowd c = new Crowd(f, 50, 1, 5);
+        // Every passage of a tree, walked both ways, reaches every cell
+        for (int i = 0; i < 2 * f.cells(); i += 1) {
+            c.tick();
+        }
+        t.checkExpect(c.arrived, 50);
+        t.checkExpect(c.arrived(Crowd.WALL_FOLLOWER), 50);
+        t.checkExpect(c.density()[f.end], 50);
+        // They all took the same way, so all got there at once
+        t.checkExpect(c.arrivedAt[49], c.arrivedAt[0]);
+        t.checkExpect(c.arrivedAt[0] >= f.bfs(new SolveScratch(1)).length - 1,
+            true);
+    }
+
+    void testSameOnAnyThreads(Tester t) {
+        FrozenMaze f = this.maze(20, 15, 7);
+        // Several chunks' worth, moved in parallel
+        Crowd parallel = new Crowd(f, 5 * Crowd.CHUNK + 17, 0.5, 8);
+        Crowd serial = new Crowd(f, 5 * Crowd.CHUNK + 17, 0.5, 8);
+        for (int i = 1; i <= 30; i += 1) {
+            parallel.tick();
+            serial.arrived += serial.move(0, serial.size, i);
+            serial.ticks = i;
+        }
+        t.checkExpect(parallel.cell, serial.cell);
+        t.checkExpect(parallel.arrivedAt, serial.arrivedAt);
+        t.checkExpect(parallel.arrived, serial.arrived);
+    }
+
+    void testDensity(Tester t) {
+        Maze m = new Maze(10, 6, 3);
+        m.initMaze();
+        Crowd c = new Crowd(m.freeze(), 100, 0, 1);
+        c.cell[0] = 7;
+        CellColors colors = c.densityColors(Palette.RAINBOW);
+
+        // The start is the most crowded cell, so it gets the last color
+        t.checkExpect(colors.colorAt(0, 0),
+            Palette.RAINBOW.colorAt(1, 1).getRGB());
+        t.checkExpect(colors.colorAt(1, 1),
+            Palette.RAINBOW.colorAt(Crowd.logScale(1), Crowd.logScale(99))
+                .getRGB());
+        t.checkExpect(colors.colorAt(5, 5), 0);
+
+        PixelBuffer img = c.render(new HeadlessRenderer(m, 100, 60, 4),
+            Palette.RAINBOW);
+        t.checkExpect(img.getRGB(5, 5), colors.colorAt(0, 0));
+        t.checkExpect(img.getRGB(55, 35), HeadlessRenderer.WHITE);
+
+        t.checkExpect(c.summary(), "tick=0 agents=100 arrived=0"
+            + " randomArrived=0 followersArrived=0 busiestCell=0"
+            + " busiestCount=99");
+    }
+}
@@ -0,0 +1,183 @@
+import tester.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import jdk.jfr.*;
+import jdk.jfr.consumer.*;
+
+// Flight recorder events for the phases of a maze's life, so a recording
+// shows which maze and solver were busy during each pause or hot spot.
+// An event that is not being recorded costs next to nothing: its fields are
+// only filled in when shouldCommit says someone wants it.
+
+// Making a maze, from its first edge to its finished spanning tree
+@Name("maze.Generation")
+@Label("Maze Generation")
+@Category("Maze")
+class GenerationEvent extends Event {
+
+    @Label("Width")
+    int width;
+    @Label("Height")
+    int height;
+    @Label("Edges Created")
+    int edgesCreated;
+    @Label("Edges Accepted")
+    int edgesAccepted;
+    @Label("findRep Calls")
+    long findRepCalls;
+    @Label("findRep Steps")
+    long findRepSteps;
+
+    // EFFECT: Ends this event, and commits it with the given counts if it
+    // is being recorded
+    void finish(GenerationMetrics m) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.width = m.width;
+            this.height = m.height;
+            this.edgesCreated = m.edgesCreated;
+            this.edgesAccepted = m.edgesAccepted;
+            this.findRepCalls = m.findRepCalls;
+            this.findRepSteps = m.findRepSteps;
+            this.commit();
+        }
+    }
+}
+
+// A batch of steps taken by one solver
+@Name("maze.Solve")
+@Label("Solver Steps")
+@Category("Maze")
+class SolveEvent extends Event {
+
+    @Label("Solver")
+    String solver;
+    @Label("Steps")
+    int steps;
+    @Label("Solved")
+    boolean solved;
+    @Label("Nodes Expanded")
+    int nodesExpanded;
+    @Label("Duplicate Pushes")
+    int duplicatePushes;
+    @Label("Peak Worklist")
+    int peakWorklist;
+
+    // EFFECT: Ends this event, and commits it with the given solver's
+    // counters after the given number of steps if it is being recorded
+    void finish(ASolver s, int steps) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.solver = s.getClass().getSimpleName();
+            this.steps = steps;
+            this.solved = s.solved;
+            this.nodesExpanded = s.nodesExpanded();
+            this.duplicatePushes = s.duplicatePushes();
+            this.peakWorklist = s.peakWorklist;
+            this.commit();
+        }
+    }
+}
+
+// Drawing one frame of a maze
+@Name("maze.Render")
+@Label("Maze Frame")
+@Category("Maze")
+class RenderEvent extends Event {
+
+    @Label("Width")
+    int width;
+    @Label("Height")
+    int height;
+    @Label("Solver")
+    String solver;
+    @Label("Walls Redrawn")
+    boolean wallsRedrawn;
+
+    // EFFECT: Ends this event, and commits it for the given window if it
+    // is being recorded
+    void finish(MazeWorld w, boolean wallsRedrawn) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.width = w.maze.width;
+            this.height = w.maze.height;
+            if (w.solver != null) {
+                this.solver = w.solver.getClass().getSimpleName();
+            }
+            this.wallsRedrawn = wallsRedrawn;
+            this.commit();
+        }
+    }
+}
+
+class ExamplesEvents {
+
+    // Returns the events of the given name recorded while the given window
+    // made a new maze, solved it with BFS and drew it
+    ArrayList<RecordedEvent> record(MazeWorld m, String name) {
+        try (Recording r = new Recording()) {
+            r.enable(name).withoutThreshold();
+            r.start();
+            m.newMaze();
+            m.onKeyEvent("b");
+            m.makeScene();
+            m.onTick();
+            m.solver.solve();
+            m.makeScene();
+            r.stop();
+
+            Path file = Files.createTempFile("maze", ".jfr");
+            r.dump(file);
+            ArrayList<RecordedEvent> events = new ArrayList<RecordedEvent>();
+            for (RecordedEvent e : RecordingFile.readAllEvents(file)) {
+                if (e.getEventType().getName().equals(name)) {
+                    events.add(e);
+                }
+            }
+            Files.delete(file);
+            events.sort(Comparator.comparing(RecordedEvent::getStartTime));
+            return events;
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    void testGenerationEvent(Tester t) {
+        MazeWorld m = new MazeWorld(new Maze(6, 4, 5));
+        ArrayList<RecordedEvent> events = this.record(m, "maze.Generation");
+        t.checkExpect(events.size(), 1);
+        RecordedEvent e = events.get(0);
+        t.checkExpect(e.getInt("width"), 6);
+        t.checkExpect(e.getInt("height"), 4);
+        t.checkExpect(e.getInt("edgesCreated"), 38);
+        t.checkExpect(e.getInt("edgesAccepted"), 23);
+        t.checkExpect(e.getLong("findRepCalls"), 76L);
+    }
+
+    void testSolveEvents(Tester t) {
+        MazeWorld m = new MazeWorld(new Maze(6, 4, 5));
+        ArrayList<RecordedEvent> events = this.record(m, "maze.Solve");
+        // One for the tick, one for solving the rest of the way
+        t.checkExpect(events.size(), 2);
+        t.checkExpect(events.get(0).getString("solver"), "BFSSolver");
+        t.checkExpect(events.get(0).getInt("steps"), 1);
+        t.checkExpect(events.get(0).getBoolean("solved"), false);
+        t.checkExpect(events.get(1).getBoolean("solved"), true);
+        t.checkExpect(events.get(1).getInt("nodesExpanded"),
+            m.solver.nodesExpanded());
+        t.checkExpect(events.get(1).getInt("steps") > 0, true);
+    }
+
+    void testRenderEvents(Tester t) {
+        MazeWorld m = new MazeWorld(new Maze(6, 4, 5));
+        ArrayList<RecordedEvent> events = this.record(m, "maze.Render");
+        t.checkExpect(events.size(), 2);
+        t.checkExpect(events.get(0).getString("solver"), "BFSSolver");
+        t.checkExpect(events.get(0).getInt("width"), 6);
+        // The walls are only drawn for the first frame
+        t.checkExpect(events.get(0).getBoolean("wallsRedrawn"), true);
+        t.checkExpect(events.get(1).getBoolean("wallsRedrawn"), false);
+    }
+}
@@ -0,0 +1,341 @@
+import tester.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// A finished maze's passages, frozen into flat arrays (compressed sparse
+// rows): the cells joined to cell i are neighbors[offsets[i]] up to, not
+// including, neighbors[offsets[i + 1]], and open[i] says which of its sides
+// those passages are on. A cell's id is the same as its node's id,
+// x * height + y. Every field is final and nothing writes to the
+// arrays once they are built, so one frozen maze can be shared by any
+// number of threads with no locks; each solve keeps what it changes in its
+// own SolveScratch. Made by Maze.freeze.
+final class FrozenMaze {
+
+    static final Direction[] DIRECTIONS = Direction.values(); // By ordinal
+
+    final int width; // Width in cells of the maze
+    final int height; // Height in cells of the maze
+    final int start; // The id of the cell solves start from
+    final int end; // The id of the cell solves are looking for
+    final int[] offsets; // Where each cell's neighbors start in neighbors
+    final int[] neighbors; // Every cell's neighbors, one cell after another
+    final byte[] open; // Which sides of each cell have passages, a bit per
+                       // Direction ordinal
+
+    // Constructor from a made maze
+    FrozenMaze(Maze maze) {
+        int cells = maze.mazeNodes.size();
+        int[] offsets = new int[cells + 1];
+        for (int i = 0; i < cells; i += 1) {
+            offsets[i + 1] = offsets[i]
+                + maze.mazeNodes.get(i).nodeEdges.size();
+        }
+
+        int[] neighbors = new int[offsets[cells]];
+        byte[] open = new byte[cells];
+        for (int i = 0; i < cells; i += 1) {
+            Node n = maze.mazeNodes.get(i);
+            for (int j = 0; j < n.nodeEdges.size(); j += 1) {
+                Node next = n.getNeighbor(n.nodeEdges.get(j));
+                neighbors[offsets[i] + j] = next.id;
+                for (Direction d : FrozenMaze.DIRECTIONS) {
+                    if (next.x == n.x + d.dx && next.y == n.y + d.dy) {
+                        open[i] |= 1 << d.ordinal();
+                    }
+                }
+            }
+        }
+
+        this.width = maze.width;
+        this.height = maze.height;
+        this.start = maze.mazeNodes.get(0).id;
+        this.end = maze.endNode.id;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.open = open;
+    }
+
+    // How many cells this maze has
+    int cells() {
+        return this.offsets.length - 1;
+    }
+
+    // How many passages lead out of the given cell
+    int degree(int cell) {
+        return this.offsets[cell + 1] - this.offsets[cell];
+    }
+
+    // The cell at the other end of the given cell's k-th passage
+    int neighbor(int cell, int k) {
+        return this.neighbors[this.offsets[cell] + k];
+    }
+
+    // The cell through the passage on the given side (a Direction ordinal)
+    // of the given cell, or -1 if there is a wall there
+    int toward(int cell, int dir) {
+        if ((this.open[cell] & (1 << dir)) == 0) {
+            return -1;
+        }
+        Direction d = FrozenMaze.DIRECTIONS[dir];
+        return cell + d.dx * this.height + d.dy;
+    }
+
+    // The id of the cell in the given column and row
+    int id(int x, int y) {
+        return x * this.height + y;
+    }
+
+    // Returns the cells from the start to the end, found breadth first, or
+    // an empty path if the end can't be reached
+    // EFFECT: Overwrites the given scratch space
+    int[] bfs(SolveScratch s) {
+        s.reset(this.cells());
+        int[] queue = s.work;
+        int head = 0;
+        int tail = 0;
+        queue[tail] = this.start;
+        tail += 1;
+        s.reach(this.start, this.start);
+
+        while (head < tail) {
+            int cur = queue[head];
+            head += 1;
+            s.expanded += 1;
+            if (cur == this.end) {
+                return s.path(this.start, this.end);
+            }
+            for (int k = this.offsets[cur]; k < this.offsets[cur + 1];
+                k += 1) {
+                int next = this.neighbors[k];
+                if (!s.reached(next)) {
+                    s.reach(next, cur);
+                    queue[tail] = next;
+                    tail += 1;
+                }
+            }
+        }
+        return new int[0];
+    }
+
+    // Returns the cells from the start to the end, found depth first, or
+    // an empty path if the end can't be reached
+    // EFFECT: Overwrites the given scratch space
+    int[] dfs(SolveScratch s) {
+        s.reset(this.cells());
+        int[] stack = s.work;
+        int top = 0;
+        stack[top] = this.start;
+        top += 1;
+        s.reach(this.start, this.start);
+
+        while (top > 0) {
+            top -= 1;
+            int cur = stack[top];
+            s.expanded += 1;
+            if (cur == this.end) {
+                return s.path(this.start, this.end);
+            }
+            for (int k = this.offsets[cur]; k < this.offsets[cur + 1];
+                k += 1) {
+                int next = this.neighbors[k];
+                if (!s.reached(next)) {
+                    s.reach(next, cur);
+                    stack[top] = next;
+                    top += 1;
+                }
+            }
+        }
+        return new int[0];
+    }
+}
+
+// Everything one solve of a FrozenMaze changes: which cells it has reached,
+// where it reached each from, and its queue or stack. Belongs to one thread
+// at a time, and is reused from solve to solve so solving allocates nothing
+// but the path it returns. Rather than clearing every mark before each
+// solve, a cell counts as reached only if its mark is this solve's number.
+class SolveScratch {
+
+    int[] marks; // The number of the last solve to reach each cell
+    int[] parent; // The cell each cell was reached from, in that solve
+    int[] work; // The cells waiting to be expanded
+    int solve; // This solve's number
+    int expanded; // How many cells this solve has expanded
+
+    // Constructor for scratch space for mazes of up to the given size (it
+    // grows if it is used for a bigger one)
+    SolveScratch(int cells) {
+        this.marks = new int[cells];
+        this.parent = new int[cells];
+        this.work = new int[cells];
+        this.solve = 0;
+        this.expanded = 0;
+    }
+
+    // EFFECT: Starts a new solve of a maze of the given size, growing the
+    // buffers if they are too small
+    void reset(int cells) {
+        if (this.marks.length < cells) {
+            this.marks = new int[cells];
+            this.parent = new int[cells];
+            this.work = new int[cells];
+            this.solve = 0;
+        }
+        if (this.solve == Integer.MAX_VALUE) {
+            Arrays.fill(this.marks, 0);
+            this.solve = 0;
+        }
+        this.solve += 1;
+        this.expanded = 0;
+    }
+
+    // Has this solve reached the given cell?
+    boolean reached(int cell) {
+        return this.marks[cell] == this.solve;
+    }
+
+    // EFFECT: Marks the given cell as reached from the given cell
+    void reach(int cell, int from) {
+        this.marks[cell] = this.solve;
+        this.parent[cell] = from;
+    }
+
+    // Returns the cells from the given start to the given reached cell
+    int[] path(int start, int end) {
+        int length = 1;
+        for (int c = end; c != start; c = this.parent[c]) {
+            length += 1;
+        }
+        int[] path = new int[length];
+        int c = end;
+        for (int i = length - 1; i >= 0; i -= 1) {
+            path[i] = c;
+            c = this.parent[c];
+        }
+        return path;
+    }
+}
+
+class ExamplesFrozen {
+
+    // The ids of the given solver's finished path, from start to end
+    int[] ids(ASolver s) {
+        ArrayList<Node> path = s.getFinishedPath();
+        int[] ids = new int[path.size()];
+        for (int i = 0; i < path.size(); i += 1) {
+            ids[path.size() - 1 - i] = path.get(i).id;
+        }
+        return ids;
+    }
+
+    void testFreeze(Tester t) {
+        Maze m = new Maze(7, 5, 11);
+        m.initMaze();
+        FrozenMaze f = m.freeze();
+
+        t.checkExpect(f.cells(), 35);
+        t.checkExpect(f.start, 0);
+        t.checkExpect(f.end, 34);
+        // A spanning tree's passages, each seen from both ends
+        t.checkExpect(f.neighbors.length, 2 * m.spanningTree.size());
+        for (Node n : m.mazeNodes) {
+            t.checkExpect(f.degree(n.id), n.nodeEdges.size());
+            for (int k = 0; k < f.degree(n.id); k += 1) {
+                t.checkExpect(f.neighbor(n.id, k),
+                    n.getNeighbor(n.nodeEdges.get(k)).id);
+            }
+        }
+        t.checkExpect(f.id(3, 2), m.nodeAt(3, 2).id);
+        for (Node n : m.mazeNodes) {
+            for (Direction d : FrozenMaze.DIRECTIONS) {
+                Edge e = n.getEdgeInDir(d);
+                int expected = -1;
+                if (e != null) {
+                    expected = n.getNeighbor(e).id;
+                }
+                t.checkExpect(f.toward(n.id, d.ordinal()), expected);
+            }
+        }
+
+        // Making the maze again leaves the snapshot alone
+        int[] before = f.neighbors.clone();
+        m.clearFields();
+        m.initMaze();
+        t.checkExpect(f.neighbors, before);
+
+        t.checkException(new RuntimeException("The maze has not been made yet"),
+            new Maze(3, 3), "freeze");
+    }
+
+    void testSolves(Tester t) {
+        Maze m = new Maze(20, 12, 4);
+        m.initMaze();
+        FrozenMaze f = m.freeze();
+        BFSSolver b = new BFSSolver(m.mazeNodes.get(0));
+        b.solve();
+        DFSSolver d = new DFSSolver(m.mazeNodes.get(0));
+        d.solve();
+
+        // A maze has only one path through it, however it is found
+        SolveScratch s = new SolveScratch(f.cells());
+        t.checkExpect(f.bfs(s), this.ids(b));
+        t.checkExpect(s.expanded <= f.cells(), true);
+        t.checkExpect(f.dfs(s), this.ids(d));
+        t.checkExpect(f.bfs(s), this.ids(b));
+
+        // Scratch space made too small grows, and still works for small mazes
+        Maze small = new Maze(3, 2, 4);
+        small.initMaze();
+        SolveScratch tiny = new SolveScratch(1);
+        t.checkExpect(f.bfs(tiny), this.ids(b));
+        BFSSolver sb = new BFSSolver(small.mazeNodes.get(0));
+        sb.solve();
+        t.checkExpect(small.freeze().dfs(tiny), this.ids(sb));
+
+        // Solve numbers wrapping around start the marks over
+        tiny.solve = Integer.MAX_VALUE;
+        t.checkExpect(f.bfs(tiny), this.ids(b));
+        t.checkExpect(tiny.solve, 1);
+    }
+
+    void testSharedAcrossThreads(Tester t) {
+        Maze m = new Maze(30, 20, 8);
+        m.initMaze();
+        FrozenMaze f = m.freeze();
+        SolveScratch mine = new SolveScratch(f.cells());
+        int[] expected = f.bfs(mine);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        ArrayList<Future<Boolean>> solves = new ArrayList<Future<Boolean>>();
+        for (int i = 0; i < 8; i += 1) {
+            boolean depthFirst = i % 2 == 0;
+            solves.add(pool.submit(() -> {
+                SolveScratch s = new SolveScratch(f.cells());
+                boolean same = true;
+                for (int j = 0; j < 200; j += 1) {
+                    int[] path;
+                    if (depthFirst) {
+                        path = f.dfs(s);
+                    }
+                    else {
+                        path = f.bfs(s);
+                    }
+                    same = same && Arrays.equals(path, expected);
+                }
+                return same;
+            }));
+        }
+        try {
+            for (Future<Boolean> solve : solves) {
+                t.checkExpect(solve.get(), true);
+            }
+        }
+        catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,388 @@
+import tester.*;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.util.*;
+import java.util.stream.*;
+import javax.imageio.ImageIO;
+
+// The color a solver gave each cell of a maze, kept as one ARGB int per cell
+// so the maze can be drawn from it without asking the solver again. Cells
+// that were never drawn are 0.
+class CellColors implements CellPainter {
+
+    int[] colors; // The color of each cell, by column then row
+    int mazeHeight; // How many rows the maze has
+
+    // Constructor for a maze of the given size with nothing drawn in it
+    CellColors(int mazeWidth, int mazeHeight) {
+        this.colors = new int[mazeWidth * mazeHeight];
+        this.mazeHeight = mazeHeight;
+    }
+
+    // EFFECT: Records the given color for the given node
+    public void paintCell(Node n, Color c) {
+        this.colors[n.x * this.mazeHeight + n.y] = c.getRGB();
+    }
+
+    // Returns the color drawn in the given column and row, or 0 if none was
+    int colorAt(int x, int y) {
+        return this.colors[x * this.mazeHeight + y];
+    }
+}
+
+// An image kept as one ARGB int per pixel, row by row
+class PixelBuffer {
+
+    int[] pixels; // The pixels, left to right and top to bottom
+    int width; // Width of the image in pixels
+    int height; // Height of the image in pixels
+
+    // Constructor for an image with every pixel 0
+    PixelBuffer(int width, int height) {
+        this.pixels = new int[width * height];
+        this.width = width;
+        this.height = height;
+    }
+
+    // Returns the color of the given pixel
+    int getRGB(int x, int y) {
+        return this.pixels[y * this.width + x];
+    }
+
+    // Returns a copy of this image that Java's image tools can work with
+    BufferedImage toImage() {
+        BufferedImage img = new BufferedImage(this.width, this.height,
+            BufferedImage.TYPE_INT_RGB);
+        img.setRGB(0, 0, this.width, this.height, this.pixels, 0, this.width);
+        return img;
+    }
+
+    // EFFECT: Writes this image to the given file as a PNG
+    void writePng(File file) {
+        try {
+            if (!ImageIO.write(this.toImage(), "png", file)) {
+                throw new RuntimeException("No PNG writer available");
+            }
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Could not write " + file, e);
+        }
+    }
+}
+
+// The rows of a PixelBuffer from top up to (not including) bottom. Drawing
+// is clipped to those rows, so separate bands of one image can be drawn at
+// the same time.
+class RasterBand implements RectPainter {
+
+    PixelBuffer buffer; // The image this band is part of
+    int top; // The first row of the band
+    int bottom; // The row just below the band
+
+    // Constructor
+    RasterBand(PixelBuffer buffer, int top, int bottom) {
+        this.buffer = buffer;
+        this.top = top;
+        this.bottom = bottom;
+    }
+
+    // EFFECT: Colors the part of the given rectangle inside this band
+    public void fillRect(int x, int y, int w, int h, Color color) {
+        this.fill(x, y, w, h, color.getRGB());
+    }
+
+    // EFFECT: Sets the part of the given rectangle inside this band to the
+    // given ARGB color
+    void fill(int x, int y, int w, int h, int rgb) {
+        int left = Math.max(x, 0);
+        int right = Math.min(x + w, this.buffer.width);
+        int from = Math.max(y, this.top);
+        int to = Math.min(y + h, this.bottom);
+
+        for (int row = from; row < to && left < right; row += 1) {
+            int start = row * this.buffer.width;
+            Arrays.fill(this.buffer.pixels, start + left, start + right, rgb);
+        }
+    }
+}
+
+// Draws a whole maze, and whatever a solver has colored in it, into a
+// PixelBuffer without a window. The maze is fitted to the given size the way
+// the window fits it (see Viewport), and the image is cut into horizontal
+// bands that are drawn in parallel.
+class HeadlessRenderer {
+
+    static final int WHITE = Color.white.getRGB();
+
+    Maze maze; // The maze to draw
+    Viewport view; // How big its cells are drawn
+    int bands; // How many bands the image is cut into
+
+    // Constructor with a few bands for every processor
+    HeadlessRenderer(Maze maze, int width, int height) {
+        this(maze, width, height,
+            Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    // Constructor
+    HeadlessRenderer(Maze maze, int width, int height, int bands) {
+        if (bands < 1) {
+            throw new RuntimeException("A renderer needs at least one band");
+        }
+        this.maze = maze;
+        this.view = new Viewport(maze.width, maze.height, width, height);
+        this.bands = bands;
+    }
+
+    // Width of the drawn maze, in pixels
+    int imageWidth() {
+        return Viewport.ceilDiv(this.maze.width, this.view.tileSize)
+            * this.view.cellSize;
+    }
+
+    // Height of the drawn maze, in pixels
+    int imageHeight() {
+        return Viewport.ceilDiv(this.maze.height, this.view.tileSize)
+            * this.view.cellSize;
+    }
+
+    // Returns an image of the maze as the given solver has colored it, or
+    // of just the start and end if the solver is null
+    PixelBuffer render(ASolver solver) {
+        CellColors colors = new CellColors(this.maze.width, this.maze.height);
+        colors.paintCell(this.maze.endNode, Color.magenta);
+        if (solver == null) {
+            colors.paintCell(this.maze.mazeNodes.get(0), ASolver.START_COLOR);
+        }
+        else {
+            solver.paintAll(colors);
+        }
+        return this.renderCells(colors);
+    }
+
+    // Returns an image of the maze with its cells in the given colors
+    PixelBuffer renderCells(CellColors colors) {
+        PixelBuffer out = new PixelBuffer(this.imageWidth(),
+            this.imageHeight());
+        int bandHeight = Viewport.ceilDiv(out.height, this.bands);
+
+        IntStream.range(0, this.bands).parallel().forEach(b -> this.drawBand(
+            new RasterBand(out, b * bandHeight,
+                Math.min(out.height, (b + 1) * bandHeight)),
+            colors));
+        return out;
+    }
+
+    // EFFECT: Writes an image of the maze as the given solver has colored
+    // it (see render) to the given file as a PNG
+    void writePng(ASolver solver, File file) {
+        this.render(solver).writePng(file);
+    }
+
+    // EFFECT: Draws the part of the maze inside the given band
+    void drawBand(RasterBand band, CellColors colors) {
+        if (band.top >= band.bottom) {
+            return;
+        }
+        band.fill(0, band.top, band.buffer.width, band.bottom - band.top,
+            HeadlessRenderer.WHITE);
+
+        if (this.view.tileSize == 1) {
+            this.drawCells(band, colors);
+        }
+        else {
+            this.drawTiles(band, colors);
+        }
+
+        this.drawOutline(band);
+    }
+
+    // EFFECT: Draws the part of the two pixel outline around the maze that
+    // is inside the given band
+    void drawOutline(RasterBand band) {
+        int width = band.buffer.width;
+        int height = band.buffer.height;
+        band.fill(0, 0, width, 2, Color.black.getRGB());
+        band.fill(0, height - 2, width, 2, Color.black.getRGB());
+        band.fill(0, 0, 2, height, Color.black.getRGB());
+        band.fill(width - 2, 0, 2, height, Color.black.getRGB());
+    }
+
+    // EFFECT: Draws the cells and walls inside the given band, a cell (or
+    // more) to a pixel
+    void drawCells(RasterBand band, CellColors colors) {
+        int size = this.view.cellSize;
+        // The walls along the bottom of the row above hang into this band
+        int firstRow = Math.max(0, band.top / size - 1);
+        int lastRow = Math.min(this.maze.height - 1, (band.bottom - 1) / size);
+
+        for (int y = firstRow; y <= lastRow; y += 1) {
+            for (int x = 0; x < this.maze.width; x += 1) {
+                int c = colors.colorAt(x, y);
+                if (c != 0) {
+                    band.fill(x * size, y * size, size, size, c);
+                }
+            }
+        }
+
+        if (this.view.showsWalls()) {
+            for (int y = firstRow; y <= lastRow; y += 1) {
+                for (int x = 0; x < this.maze.width; x += 1) {
+                    this.maze.nodeAt(x, y).renderWallsOnto(band, this.view);
+                }
+            }
+        }
+    }
+
+    // EFFECT: Draws the tiles inside the given band, a pixel per tile,
+    // faded by how many of their cells were drawn (as CellCanvas does)
+    void drawTiles(RasterBand band, CellColors colors) {
+        int tile = this.view.tileSize;
+
+        for (int py = band.top; py < band.bottom; py += 1) {
+            for (int px = 0; px < band.buffer.width; px += 1) {
+                int drawn = 0;
+                int last = 0;
+                int maxX = Math.min(this.maze.width, (px + 1) * tile);
+                int maxY = Math.min(this.maze.height, (py + 1) * tile);
+                for (int x = px * tile; x < maxX; x += 1) {
+                    for (int y = py * tile; y < maxY; y += 1) {
+                        int c = colors.colorAt(x, y);
+                        if (c != 0) {
+                            drawn += 1;
+                            last = c;
+                        }
+                    }
+                }
+                if (drawn > 0) {
+                    band.fill(px, py, 1, 1, CellCanvas.fade(new Color(last),
+                        drawn, tile).getRGB());
+                }
+            }
+        }
+    }
+
+    // EFFECT: Generates the given number of mazes of the given size and
+    // writes a thumbnail of each, fitted to size by size pixels, into the
+    // given directory as maze-0.png, maze-1.png, ...
+    static void writeThumbnails(int count, int mazeWidth, int mazeHeight,
+        int size, File dir) {
+        for (int i = 0; i < count; i += 1) {
+            Maze m = new Maze(mazeWidth, mazeHeight);
+            m.initMaze();
+            new HeadlessRenderer(m, size, size).writePng(null,
+                new File(dir, "maze-" + i + ".png"));
+        }
+    }
+}
+
+class ExamplesHeadless {
+
+    Maze m;
+
+    void init() {
+        m = new Maze(10, 6);
+        m.initMaze();
+    }
+
+    void testRenderMaze(Tester t) {
+        this.init();
+        HeadlessRenderer r = new HeadlessRenderer(m, 100, 60, 4);
+        PixelBuffer img = r.render(null);
+
+        t.checkExpect(img.width, 100);
+        t.checkExpect(img.height, 60);
+        t.checkExpect(img.getRGB(5, 5), ASolver.START_COLOR.getRGB());
+        t.checkExpect(img.getRGB(95, 55), Color.magenta.getRGB());
+        t.checkExpect(img.getRGB(0, 0), Color.black.getRGB());
+        t.checkExpect(img.getRGB(50, 59), Color.black.getRGB());
+    }
+
+    void testSameWallsAsWindow(Tester t) {
+        this.init();
+        // Fitted to the window, so drawn just as big as the window draws it
+        PixelBuffer img = new HeadlessRenderer(m, MazeWorld.WINDOW_WIDTH,
+            MazeWorld.WINDOW_HEIGHT).render(null);
+        PixelLayer walls = new MazeWorld(m).staticLayer();
+
+        boolean same = true;
+        for (int x = 0; x < img.width; x += 3) {
+            for (int y = 0; y < img.height; y += 3) {
+                same = same && (img.getRGB(x, y) == Color.black.getRGB())
+                    == walls.image.getPixel(x, y).equals(Color.black);
+            }
+        }
+        t.checkExpect(same, true);
+    }
+
+    void testBandsMatch(Tester t) {
+        this.init();
+        DFSSolver d = new DFSSolver(m.mazeNodes.get(0));
+        while (!d.solved) {
+            d.step();
+        }
+
+        PixelBuffer whole = new HeadlessRenderer(m, 130, 80, 1).render(d);
+        PixelBuffer cut = new HeadlessRenderer(m, 130, 80, 7).render(d);
+        PixelBuffer thin = new HeadlessRenderer(m, 130, 80, 500).render(d);
+
+        t.checkExpect(Arrays.equals(whole.pixels, cut.pixels), true);
+        t.checkExpect(Arrays.equals(whole.pixels, thin.pixels), true);
+        // The finished path is drawn over the start
+        t.checkExpect(whole.getRGB(5, 5), Color.blue.getRGB());
+        t.checkExpect(whole.width, 130);
+        t.checkExpect(whole.height, 78);
+    }
+
+    void testThumbnailOfHugeMaze(Tester t) {
+        Maze big = new Maze(400, 50);
+        big.initMaze();
+        HeadlessRenderer r = new HeadlessRenderer(big, 40, 40);
+
+        t.checkExpect(r.view.tileSize, 10);
+        PixelBuffer img = r.render(null);
+        t.checkExpect(img.width, 40);
+        t.checkExpect(img.height, 5);
+        t.checkExpect(img.getRGB(20, 2), HeadlessRenderer.WHITE);
+
+        // The end's tile has one of its hundred cells drawn
+        CellColors colors = new CellColors(400, 50);
+        colors.paintCell(big.endNode, Color.magenta);
+        PixelBuffer tiles = new PixelBuffer(40, 5);
+        r.drawTiles(new RasterBand(tiles, 0, 5), colors);
+        t.checkExpect(tiles.getRGB(39, 4),
+            CellCanvas.fade(Color.magenta, 1, 10).getRGB());
+        t.checkExpect(tiles.getRGB(38, 4), 0);
+    }
+
+    void testWritePng(Tester t) {
+        this.init();
+        try {
+            File dir = File.createTempFile("mazes", "");
+            dir.delete();
+            dir.mkdir();
+            HeadlessRenderer.writeThumbnails(2, 10, 6, 50, dir);
+
+            File first = new File(dir, "maze-0.png");
+            BufferedImage img = ImageIO.read(first);
+            t.checkExpect(img.getWidth(), 50);
+            t.checkExpect(img.getHeight(), 30);
+            t.checkExpect(new File(dir, "maze-1.png").exists(), true);
+
+            new File(dir, "maze-1.png").delete();
+            first.delete();
+            dir.delete();
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    void testBadRenderer(Tester t) {
+        this.init();
+        t.checkConstructorException(
+            new RuntimeException("A renderer needs at least one band"),
+            "HeadlessRenderer", m, 100, 60, 0);
+    }
+}
@@ -1,7 +1,5 @@
 import tester.*;
-import javalib.impworld.*;
 import java.awt.Color;
-import javalib.worldimages.*;
 import java.util.*;
 
 class EdgeComp implements Comparator<Edge> {
@@ -11,39 +9,123 @@ class EdgeComp implements Comparator<Edge> {
     }
 }
 
+// One of the four grid directions a node can have a neighbor in
+enum Direction {
+    UP(0, -1), DOWN(0, 1), LEFT(-1, 0), RIGHT(1, 0);
+
+    int dx; // Change in x when moving this way
+    int dy; // Change in y when moving this way
+
+    Direction(int dx, int dy) {
+        this.dx = dx;
+        this.dy = dy;
+    }
+
+    // Returns the direction for the given arrow key, or null if the key is
+    // not an arrow key
+    static Direction fromKey(String ke) {
+        if (ke.equals("up")) {
+            return Direction.UP;
+        }
+        else if (ke.equals("down")) {
+            return Direction.DOWN;
+        }
+        else if (ke.equals("left")) {
+            return Direction.LEFT;
+        }
+        else if (ke.equals("right")) {
+            return Direction.RIGHT;
+        }
+        return null;
+    }
+}
+
 // A node in a graph (a.k.a. Vertex, but too late to rename everything)
 class Node {
 
     ArrayList<Edge> nodeEdges; // The edges this node is connected to
     int x; // x position in graph
     int y; // y position in graph
-
-    // Constructor
+    // Debug mode: makes getNeighbor check its edge against nodeEdges. Slow,
+    // so off unless the JVM is run with -Dmaze.checkEdges=true
+    static boolean checkEdges = Boolean.getBoolean("maze.checkEdges");
+
+    int id; // Index of this node in its maze's list of nodes. A node built
+            // by hand has -1 until a solver numbers its graph (see
+            // numberGraph)
+    // This node's edges indexed by Direction ordinal, null where there is a
+    // wall. Built when first needed, thrown away when the edges change.
+    Edge[] dirEdges;
+
+    // Constructor for a node that is not part of a maze's list of nodes
     Node(int x, int y) {
         this.nodeEdges = new ArrayList<Edge>();
         this.x = x;
         this.y = y;
+        this.id = -1;
+    }
+
+    // Constructor for the node with the given index in its maze
+    Node(int x, int y, int id) {
+        this(x, y);
+        if (id < 0) {
+            throw new RuntimeException("A node's id can't be negative");
+        }
+        this.id = id;
+    }
+
+    // EFFECT: If the given node was built by hand and is not numbered yet,
+    // numbers it and every node its edges lead to from 0 up, so that
+    // solvers can keep what they know about each node in arrays indexed by
+    // id. Maze nodes are numbered already, so are left alone.
+    static synchronized void numberGraph(Node start) {
+        if (start.id >= 0) {
+            return;
+        }
+        ArrayList<Node> numbered = new ArrayList<Node>();
+        start.id = 0;
+        numbered.add(start);
+        for (int i = 0; i < numbered.size(); i += 1) {
+            for (Edge e : numbered.get(i).nodeEdges) {
+                Node.numberNext(e.n1, numbered);
+                Node.numberNext(e.n2, numbered);
+            }
+        }
+    }
+
+    // EFFECT: Gives the given node the next id and adds it to numbered,
+    // unless it is missing or already has an id
+    static void numberNext(Node n, ArrayList<Node> numbered) {
+        if (n != null && n.id < 0) {
+            n.id = numbered.size();
+            numbered.add(n);
+        }
     }
 
     // Add the given edge to this node's list of connected edges
     void addEdge(Edge e) {
         if (!this.nodeEdges.contains(e) && this.nodeEdges.size() < 4) {
             this.nodeEdges.add(e);
+            this.dirEdges = null;
         }
         return;
     }
 
     // Return the node at the other end of the given edge (if this node is
-    // connected to the given edge)
+    // connected to the given edge). Only looks at the edge's two ends; with
+    // Node.checkEdges on, also checks the edge is still one of this node's
+    // edges (i.e. was not filtered out of the maze).
     Node getNeighbor(Edge e) {
 
-        if (this.nodeEdges.contains(e)) {
-            if (e.n1.equals(this)) {
-                return e.n2;
-            }
-            else if (e.n2.equals(this)) {
-                return e.n1;
-            }
+        if (Node.checkEdges && !this.nodeEdges.contains(e)) {
+            throw new RuntimeException(
+                "Given edge is not connected to this node");
+        }
+        if (e.n1 == this) {
+            return e.n2;
+        }
+        else if (e.n2 == this) {
+            return e.n1;
         }
 
         throw new RuntimeException("Given edge is not connected to this node");
@@ -72,74 +154,94 @@ class Node {
 
             if (!goodEdges.contains(this.nodeEdges.get(i))) {
                 this.nodeEdges.remove(i);
+                this.dirEdges = null;
                 i -= 1;
             }
         }
     }
 
-    // Produces an image of this node in the given color
-    WorldImage render(int size, Color color) {
-        return new RectangleImage(size, size, OutlineMode.SOLID, color);
+    // Is this node an EndNode? no
+    boolean isEnd() {
+        return false;
     }
 
-    // EFFECT: Draws this node onto the given background, in the given color
-    void renderOnto(WorldScene bg, int size, Color color) {
-        bg.placeImageXY(this.render(size, color), this.x * size + size / 2,
-            this.y * size + size / 2);
+    // Returns this node's edges indexed by Direction ordinal
+    // EFFECT: Builds the table the first time it is needed after this node's
+    // edges change
+    Edge[] edgesByDir() {
+        if (this.dirEdges == null) {
+            Edge[] table = new Edge[4];
+            for (Edge e : this.nodeEdges) {
+                Node neighbor = this.getNeighbor(e);
+                for (Direction d : Direction.values()) {
+                    if (neighbor.x == this.x + d.dx
+                        && neighbor.y == this.y + d.dy) {
+                        table[d.ordinal()] = e;
+                    }
+                }
+            }
+            this.dirEdges = table;
+        }
+        return this.dirEdges;
     }
 
-    // Is this node an EndNode? no
-    boolean isEnd() {
-        return false;
+    // Returns the edge out of this node in the given direction, or null if
+    // there is a wall that way
+    Edge getEdgeInDir(Direction d) {
+        return this.edgesByDir()[d.ordinal()];
     }
 
     // Does this node have an edge in the given grid direction?
-    boolean hasNodeInDir(String ke) {
+    boolean hasNodeInDir(Direction d) {
+        return this.getEdgeInDir(d) != null;
+    }
 
-        for (Edge e : this.nodeEdges) {
+    // EFFECT: Draws the walls on this node's right and bottom sides, where
+    // it has no passage to the next node, into the given layer as seen
+    // through the given view
+    void renderWallsOnto(RectPainter layer, Viewport view) {
+        int size = view.cellSize;
+        int x = view.screenX(this.x);
+        int y = view.screenY(this.y);
+
+        if (this.x + 1 < view.mazeWidth
+            && !this.hasNodeInDir(Direction.RIGHT)) {
+            layer.fillRect(x + size - 1, y, 2, size, Color.black);
+        }
+        if (this.y + 1 < view.mazeHeight
+            && !this.hasNodeInDir(Direction.DOWN)) {
+            layer.fillRect(x, y + size - 1, size, 2, Color.black);
+        }
+    }
 
-            Node neighbor = this.getNeighbor(e);
+    // Does this node have an edge in the direction of the given arrow key?
+    boolean hasNodeInDir(String ke) {
+        Direction d = Direction.fromKey(ke);
+        return d != null && this.hasNodeInDir(d);
+    }
 
-            if (ke.equals("up") && (neighbor.y == this.y - 1)) {
-                return true;
-            }
-            else if (ke.equals("down") && (neighbor.y == this.y + 1)) {
-                return true;
-            }
-            else if (ke.equals("left") && (neighbor.x == this.x - 1)) {
-                return true;
-            }
-            else if (ke.equals("right") && (neighbor.x == this.x + 1)) {
-                return true;
-            }
+    // If this node has an edge in the given grid direction, returns the node
+    // at the other end of it; throws exception if not.
+    Node getNodeInDir(Direction d) {
+        Edge e = this.getEdgeInDir(d);
+
+        if (e == null) {
+            throw new RuntimeException(
+                "Node does not have an edge in the given direction");
         }
-        return false;
+        return this.getNeighbor(e);
     }
 
-    // If this node has an edge in the given grid direction, returns it; throws
-    // exception if not.
+    // If this node has an edge in the direction of the given arrow key,
+    // returns the node at the other end of it; throws exception if not.
     Node getNodeInDir(String ke) {
+        Direction d = Direction.fromKey(ke);
 
-        for (Edge e : this.nodeEdges) {
-
-            Node neighbor = this.getNeighbor(e);
-
-            if (ke.equals("up") && (neighbor.y == this.y - 1)) {
-                return neighbor;
-            }
-            else if (ke.equals("down") && (neighbor.y == this.y + 1)) {
-                return neighbor;
-            }
-            else if (ke.equals("left") && (neighbor.x == this.x - 1)) {
-                return neighbor;
-            }
-            else if (ke.equals("right") && (neighbor.x == this.x + 1)) {
-                return neighbor;
-            }
+        if (d == null) {
+            throw new RuntimeException(
+                "Node does not have an edge in the given direction");
         }
-
-        throw new RuntimeException(
-            "Node does not have an edge in the given direction");
+        return this.getNodeInDir(d);
     }
 }
 
@@ -150,9 +252,8 @@ class EndNode extends Node {
         super(x, y);
     }
 
-    // Produces the image of this node
-    WorldImage render(int size) {
-        return new RectangleImage(size, size, OutlineMode.SOLID, Color.MAGENTA);
+    EndNode(int x, int y, int id) {
+        super(x, y, id);
     }
 
     // Is this node an end node? Yes.
@@ -204,43 +305,12 @@ class Edge {
     int compare(Edge that) {
         return this.weight - that.weight;
     }
-
-    // Draws an image of this edge
-    WorldImage render(int size, boolean horizontal) {
-        if (horizontal) {
-            return new RectangleImage(2, size, OutlineMode.SOLID, Color.black);
-        }
-        else {
-            return new RectangleImage(size, 2, OutlineMode.SOLID, Color.black);
-        }
-    }
-
-    // EFFECT: Draws this edge onto the given background
-    void renderOnto(WorldScene bg, int size) {
-        boolean horizontal = (this.n1.y == this.n2.y);
-
-        double x;
-        double y;
-        if (horizontal) {
-            x = (this.n1.x + this.n2.x) / 2.0;
-            y = this.n1.y;
-            // bg.placeImageXY(this.render(size, horizontal), (int) (x * size),
-            // (int) (y * size));
-        }
-        else {
-            x = this.n1.x;
-            y = (this.n1.y + this.n2.y) / 2.0;
-            // bg.placeImageXY(this.render(size, horizontal), (int) (x * size),
-            // (int) (y * size));
-        }
-
-        bg.placeImageXY(this.render(size, horizontal),
-            (int) (x * size + size / 2), (int) (y * size + size / 2));
-    }
 }
 
-// Representing a maze with exactly one start point, end point, and solution
-class Maze extends World {
+// Representing a maze with exactly one start point, end point, and solution.
+// This is only the maze itself and how it is made; MazeWorld shows one in a
+// window, and MazeCli makes and solves them with no window at all.
+class Maze {
 
     ArrayList<Node> mazeNodes; // All the nodes in this maze/graph
     ArrayList<Edge> mazeEdges; // All the edges in this maze/graph
@@ -250,59 +320,35 @@ class Maze extends World {
     int width; // Width in nodes of the maze
     int height; // Height in nodes of the maze
 
-    int cellSize; // Size of the node (cell) when rendered, in pixels maybe
-
-    final static int WINDOW_WIDTH = 1000; // Width of the animation window
-    final static int WINDOW_HEIGHT = 600; // Height of the animation window
-
     // Map of nodes to representatives. Node first, representative second
     HashMap<Node, Node> reps;
 
-    ASolver solver;
+    // Every node's distance from the start, computed the first time it is
+    // needed and kept until the maze changes
+    DistanceField distances;
+
+    Random rand; // Where the edge weights, and so the maze's shape, come from
 
-    boolean mazeStarted;
-    boolean displayColor;
-    boolean playerSolving;
-    boolean displayScores;
+    // How long making this maze took, phase by phase
+    GenerationMetrics metrics;
 
-    // Constructor that does not initialize spanning tree, solver, or player
+    // Constructor that does not initialize spanning tree
     Maze(int width, int height) {
         this.width = width;
         this.height = height;
-        this.cellSize = Math.min(Maze.WINDOW_WIDTH / width,
-            Maze.WINDOW_HEIGHT / height);
         this.mazeNodes = new ArrayList<Node>();
         this.mazeEdges = new ArrayList<Edge>();
         this.spanningTree = new ArrayList<Edge>();
         this.reps = new HashMap<Node, Node>();
-
-        this.mazeStarted = false;
-        this.displayColor = false;
-        this.playerSolving = false;
-        this.displayScores = false;
+        this.rand = new Random();
+        this.metrics = new GenerationMetrics(width, height);
     }
 
-    // Constructor that also initializes spanning tree etc. and solver
-    Maze(int width, int height, boolean bfs) {
-
+    // Constructor for a maze whose shape comes from the given seed, so that
+    // the same seed always makes the same maze (but does not make it yet)
+    Maze(int width, int height, long seed) {
         this(width, height);
-
-        this.initMaze();
-
-        if (bfs) {
-            this.solver = new BFSSolver(this.mazeNodes.get(0));
-        }
-        else {
-            this.solver = new DFSSolver(this.mazeNodes.get(0));
-        }
-
-    }
-
-    // Constructor that initializes maze to be solved by player
-    Maze() {
-        this(100, 60);
-        this.initMaze();
-        this.solver = new Player(this.mazeNodes.get(0));
+        this.rand = new Random(seed);
     }
 
     // EFFECT: Adds nodes and edges to this maze's lists of each.
@@ -317,13 +363,14 @@ class Maze extends World {
             for (int c = 0; c < this.height; c += 1) {
 
                 Node curNode;
+                int id = this.mazeNodes.size();
 
                 if ((r == this.width - 1) && (c == this.height - 1)) {
-                    curNode = new EndNode(r, c);
+                    curNode = new EndNode(r, c, id);
                     this.endNode = curNode;
                 }
                 else {
-                    curNode = new Node(r, c);
+                    curNode = new Node(r, c, id);
                 }
 
                 this.mazeNodes.add(curNode);
@@ -332,7 +379,8 @@ class Maze extends World {
                 // If we aren't in the top row, set top edge
                 if (prevRow.size() != 0) {
                     // Connect the edge properly to the current node
-                    Edge e1 = new Edge(); // random value edge
+                    // random value edge
+                    Edge e1 = new Edge(this.rand.nextInt(1000));
                     curNode.addEdge(e1);
                     e1.setN1(curNode);
                     // Connect the edge properly to the top node
@@ -346,7 +394,8 @@ class Maze extends World {
                 // If this isn't the first node in row, set left edge
                 if (c != 0) {
                     // Connect the edge properly to the current node
-                    Edge e2 = new Edge(); // random value edge
+                    // random value edge
+                    Edge e2 = new Edge(this.rand.nextInt(1000));
                     curNode.addEdge(e2);
                     e2.setN1(curNode);
                     // Connect the edge properly to the left node
@@ -392,6 +441,7 @@ class Maze extends World {
             if (!n1rep.equals(n2rep)) {
                 reps.put(n2rep, n1rep);
                 spanningTree.add(cur);
+                this.metrics.edgesAccepted += 1;
             }
         }
     }
@@ -399,19 +449,26 @@ class Maze extends World {
     // EFFECT: Modifies all of this maze's nodes to remove any references
     // to edges that are not in the spanning tree. The edges still exist
     // and point to their respective nodes, but the nodes do not point to them.
+    // Builds each node's table of edges by direction for the final edges.
     void onlySpanningEdges() {
         for (int i = 0; i < this.mazeNodes.size(); i += 1) {
             this.mazeNodes.get(i).filterEdges(this.spanningTree);
+            this.mazeNodes.get(i).edgesByDir();
         }
     }
 
     // Find the root node in Node n's spanning tree that represents it.
     // this.reps MUST be filled with this maze's nodes before method is used.
+    // EFFECT: Counts the call, and the links followed, in this maze's metrics
     Node findRep(Node n) {
         Node rep = reps.get(n);
+        long steps = 0;
         while (!rep.equals(reps.get(rep))) {
             rep = reps.get(rep);
+            steps += 1;
         }
+        this.metrics.findRepCalls += 1;
+        this.metrics.findRepSteps += steps;
         return rep;
     }
 
@@ -421,288 +478,81 @@ class Maze extends World {
         this.mazeNodes = new ArrayList<Node>();
         this.spanningTree = new ArrayList<Edge>();
         this.reps = new HashMap<Node, Node>();
+        this.distances = null;
     }
 
     // Creates nodes/edges, sorts edges, creates node-representative map,
     // sorts edges, and creates spanning tree.
-    // EFFECT: Modifies all the fields needed to do the above.
+    // EFFECT: Modifies all the fields needed to do the above, and records
+    // how long each phase took in new metrics
     void initMaze() {
+        GenerationEvent event = new GenerationEvent();
+        event.begin();
+        this.distances = null;
+        this.metrics = new GenerationMetrics(this.width, this.height);
+
+        long start = System.nanoTime();
+        long bytes = MemoryStats.allocatedBytes();
         this.randomEdges();
+        long edges = System.nanoTime();
+        this.metrics.edgeBytes = MemoryStats.allocatedSince(bytes);
+        bytes = MemoryStats.allocatedBytes();
         this.sortEdges();
+        long sorted = System.nanoTime();
+        this.metrics.sortBytes = MemoryStats.allocatedSince(bytes);
+        bytes = MemoryStats.allocatedBytes();
         this.initReps();
+        long reps = System.nanoTime();
+        this.metrics.repsBytes = MemoryStats.allocatedSince(bytes);
+        bytes = MemoryStats.allocatedBytes();
         this.createSpanningTree();
+        long tree = System.nanoTime();
+        this.metrics.treeBytes = MemoryStats.allocatedSince(bytes);
+        bytes = MemoryStats.allocatedBytes();
         this.onlySpanningEdges();
+        long filtered = System.nanoTime();
+        this.metrics.filterBytes = MemoryStats.allocatedSince(bytes);
+
+        this.metrics.edgesCreated = this.mazeEdges.size();
+        this.metrics.edgeNanos = edges - start;
+        this.metrics.sortNanos = sorted - edges;
+        this.metrics.repsNanos = reps - sorted;
+        this.metrics.treeNanos = tree - reps;
+        this.metrics.filterNanos = filtered - tree;
+        event.finish(this.metrics);
     }
 
-    // EFFECT: Adds the menu text to bg
-    // Draws the menu that displays before maze solving begins
-    void drawMainMenu(WorldScene bg, int offset) {
-        int unit = Maze.WINDOW_WIDTH / 24;
-
-        WorldImage mainMenu = new TextImage("Menu", 20, Color.red);
-
-        WorldImage startDFS = new BesideImage(
-            new TextImage("d: ", 15, Color.red),
-            new TextImage("Depth-First Search", 15, Color.cyan));
-        WorldImage startBFS = new BesideImage(
-            new TextImage("b: ", 15, Color.red),
-            new TextImage("Breadth-First Search", 15, Color.cyan));
-        WorldImage startFastBFS = new BesideImage(
-            new TextImage("f: ", 15, Color.red),
-            new TextImage("Fast Breadth-First Search", 15, Color.cyan));
-        WorldImage startPlayer = new BesideImage(
-            new TextImage("p: ", 15, Color.red),
-            new TextImage("Solve it yourself!", 15, Color.cyan));
-        WorldImage colorStep = new BesideImage(
-            new TextImage("s: ", 15, Color.red),
-            new AboveImage(new TextImage("Color maze by depth", 15, Color.cyan),
-                new TextImage("while solving w/ FBFS", 15, Color.cyan)));
-        WorldImage color = new BesideImage(new TextImage("c: ", 15, Color.red),
-            new TextImage("Color maze by depth", 15, Color.cyan));
-        WorldImage hide = new BesideImage(new TextImage("h: ", 15, Color.red),
-            new AboveImage(
-                new TextImage("Hide coloring (if not", 15, Color.cyan),
-                new TextImage("colored solved maze)", 15, Color.cyan)));
-        WorldImage fight = new BesideImage(new TextImage("i: ", 15, Color.red),
-            new TextImage("SOLVER FIGHT!", 15, Color.cyan));
-        WorldImage colors = new AboveImage(
-            new TextImage("Blue = BFS (Slow)", 15, new Color(50, 153, 255)),
-            new TextImage("Red = DFS", 15, Color.red));
-        WorldImage fightSolver = new AboveImage(fight, colors);
-
-        WorldImage forNew = new TextImage("For a different maze,", 15,
-            Color.red);
-        WorldImage pressEnter = new TextImage("press enter", 15, Color.red);
-        WorldImage enterForNew = new AboveImage(forNew, pressEnter);
-
-        bg.placeImageXY(mainMenu, offset, unit);
-        bg.placeImageXY(startDFS, offset, unit * 2);
-        bg.placeImageXY(startBFS, offset, unit * 3);
-        bg.placeImageXY(startFastBFS, offset, unit * 4);
-        bg.placeImageXY(startPlayer, offset, unit * 5);
-        bg.placeImageXY(colorStep, offset, unit * 6);
-        bg.placeImageXY(color, offset, unit * 7);
-        bg.placeImageXY(hide, offset, unit * 8);
-        bg.placeImageXY(fightSolver, offset, (int) (unit * 9.5));
-
-        bg.placeImageXY(enterForNew, offset, unit * 12);
-    }
-
-    // EFFECT: Adds the menu text to bg
-    // Draws the menu that displays while player is solving maze
-    void drawPlayerInGameMenu(WorldScene bg, int offset) {
-        int unit = Maze.WINDOW_WIDTH / 24;
-
-        WorldImage mainMenu = new TextImage("Menu", 20, Color.red);
-        WorldImage stuck = new TextImage("Stuck? Finish the maze by", 15,
-            Color.cyan);
-        WorldImage forHelp = new AboveImage(stuck,
-            new TextImage("choosing an algorithm:", 15, Color.cyan));
-        WorldImage startDFS = new BesideImage(
-            new TextImage("d: ", 15, Color.red),
-            new TextImage("Depth-First Search", 15, Color.cyan));
-        WorldImage startBFS = new BesideImage(
-            new TextImage("b: ", 15, Color.red),
-            new TextImage("Breadth-First Search", 15, Color.cyan));
-        WorldImage startFastBFS = new BesideImage(
-            new TextImage("f: ", 15, Color.red),
-            new TextImage("Fast Breadth-First Search", 15, Color.cyan));
-        WorldImage colorStep = new BesideImage(
-            new TextImage("s: ", 15, Color.red),
-            new AboveImage(new TextImage("Color maze by depth", 15, Color.cyan),
-                new TextImage("while solving w/ FBFS", 15, Color.cyan)));
-        WorldImage fight = new BesideImage(new TextImage("i: ", 15, Color.red),
-            new TextImage("SOLVER FIGHT!", 15, Color.cyan));
-        WorldImage colors = new AboveImage(
-            new TextImage("Blue = BFS (Slow)", 15, new Color(50, 153, 255)),
-            new TextImage("Red = DFS", 15, Color.red));
-        WorldImage fightSolver = new AboveImage(fight, colors);
-
-
-        bg.placeImageXY(mainMenu, offset, unit);
-        bg.placeImageXY(forHelp, offset, unit * 2);
-        bg.placeImageXY(startDFS, offset, unit * 4);
-        bg.placeImageXY(startBFS, offset, unit * 5);
-        bg.placeImageXY(startFastBFS, offset, unit * 6);
-        bg.placeImageXY(colorStep, offset, unit * 7);
-        bg.placeImageXY(fightSolver, offset, (int) (unit * 8.5));
-
-    }
-
-    // EFFECT: Adds the menu text to bg
-    // Draws the menu that displays while maze is being auto-solved
-    void drawInGameMenu(WorldScene bg, int offset) {
-        int unit = Maze.WINDOW_WIDTH / 24;
-
-        WorldImage mainMenu = new TextImage("Menu", 20, Color.red);
-        WorldImage pressEnter = new TextImage("Press enter to stop solving", 15,
-            Color.cyan);
-        WorldImage stopSolving = new TextImage("and start a new maze.", 15,
-            Color.cyan);
-        WorldImage msg = new AboveImage(pressEnter, stopSolving);
-
-        bg.placeImageXY(mainMenu, offset, unit);
-        bg.placeImageXY(msg, offset, unit * 3);
-
-    }
-
-    // Draws the maze
-    public WorldScene makeScene() {
-        WorldScene bg = new WorldScene(Maze.WINDOW_WIDTH, Maze.WINDOW_HEIGHT);
-
-        this.endNode.renderOnto(bg, this.cellSize, Color.magenta);
-
-        if (this.mazeStarted || this.displayColor) {
-            this.solver.renderOnto(bg, this.cellSize);
-        }
-        else {
-            this.mazeNodes.get(0).renderOnto(bg, this.cellSize,
-                new Color(0, 155, 0));
-        }
-        // Draw the walls of the maze
-        for (Edge e : this.mazeEdges) {
-            if (!this.spanningTree.contains(e)) {
-                e.renderOnto(bg, this.cellSize);
-            }
-        }
-
-        WorldImage outline = new RectangleImage(this.width * this.cellSize - 1,
-            this.height * this.cellSize - 1, OutlineMode.OUTLINE, Color.BLACK);
-        WorldImage outline2 = new RectangleImage(this.width * this.cellSize - 3,
-            this.height * this.cellSize - 3, OutlineMode.OUTLINE, Color.BLACK);
-
-        bg.placeImageXY(outline, this.width * this.cellSize / 2,
-            this.height * this.cellSize / 2);
-        bg.placeImageXY(outline2, this.width * this.cellSize / 2,
-            this.height * this.cellSize / 2);
-
-        WorldImage menuBG = new RectangleImage(Maze.WINDOW_WIDTH / 5,
-            Maze.WINDOW_HEIGHT, OutlineMode.SOLID, Color.black);
-        bg.placeImageXY(menuBG,
-            Maze.WINDOW_WIDTH + (int) (menuBG.getWidth() / 2),
-            Maze.WINDOW_HEIGHT / 2);
-
-        if (!this.mazeStarted) {
-            this.drawMainMenu(bg,
-                Maze.WINDOW_WIDTH + (int) (menuBG.getWidth() / 2));
-        }
-        else if (this.playerSolving) {
-            this.drawPlayerInGameMenu(bg,
-                Maze.WINDOW_WIDTH + (int) (menuBG.getWidth() / 2));
-        }
-        else {
-            this.drawInGameMenu(bg,
-                Maze.WINDOW_WIDTH + (int) (menuBG.getWidth() / 2));
-        }
-
-        return bg;
+    // Returns a snapshot of how long making this maze took, phase by phase
+    GenerationMetrics generationMetrics() {
+        return this.metrics.snapshot();
     }
 
-    // Steps one step forward in maze if the maze is active but not solved.
-    public void onTick() {
-
-        if (!this.mazeStarted || this.solver.solved) {
-            return;
-        }
-        else {
-            this.solver.step();
+    // Returns every node's distance from the start of this maze. Safe to
+    // call from several threads at once: only the first computes them.
+    // EFFECT: Computes and caches the distances the first time after the
+    // maze changes
+    synchronized DistanceField distancesFromStart() {
+        if (this.distances == null) {
+            this.distances = new DistanceField(this.mazeNodes,
+                this.mazeNodes.get(0));
         }
+        return this.distances;
     }
 
-    // Handles key events
-    // EFFECT: May initialize this maze's solver, reset all maze-related fields,
-    // or move player position if player is solving maze.
-    public void onKeyEvent(String ke) {
-
-        // If the game is not started, start it when these keys are pressed
-        if (!this.mazeStarted
-            && (ke.equals("d") || ke.equals("b") || ke.equals("p")
-                || ke.equals("f") || ke.equals("s") || ke.equals("i"))) {
-
-            this.displayColor = false;
-            this.displayScores = false;
-
-            if (ke.equals("d")) {
-                this.solver = new DFSSolver(this.mazeNodes.get(0));
-            }
-            else if (ke.equals("b")) {
-                this.solver = new BFSSolver(this.mazeNodes.get(0));
-            }
-            else if (ke.equals("p")) {
-                this.solver = new Player(this.mazeNodes.get(0));
-                this.playerSolving = true;
-            }
-            else if (ke.equals("f")) {
-                this.solver = new FastBFSSolver(this.mazeNodes.get(0));
-            }
-            else if (ke.equals("s")) {
-                this.solver = new StepColorer(this.mazeNodes.get(0));
-            }
-            else if (ke.equals("i")) {
-                this.solver = new SolverFight(this.mazeNodes.get(0));
-            }
-            this.mazeStarted = true;
-        }
-
-        // display maze coloring when "c" is pressed
-        else if (!this.mazeStarted && !this.displayColor && ke.equals("c")) {
-            this.solver = new ColorMazeFromStart(this.mazeNodes.get(0));
-            this.solver.step();
-            this.displayColor = true;
-        }
-        // hide maze coloring when "h" is pressed
-        else if (this.displayColor && ke.equals("h")) {
-            this.displayColor = false;
-        }
-        else if (!this.displayScores && ke.equals("x")) {
-            // display scores
-        }
-        else if (this.displayScores && ke.equals("y")) {
-            // hide scores
-        }
-
-        // if the player presses b, d, f, or s to finish solving
-        else if (this.mazeStarted && this.playerSolving
-            && (ke.equals("s") || ke.equals("d") || ke.equals("b")
-                || ke.equals("f") || ke.equals("i"))) {
-            if (ke.equals("d")) {
-                this.solver = new DFSSolver(this.mazeNodes.get(0));
-            }
-            else if (ke.equals("b")) {
-                this.solver = new BFSSolver(this.mazeNodes.get(0));
-            }
-            else if (ke.equals("f")) {
-                this.solver = new FastBFSSolver(this.mazeNodes.get(0));
-            }
-
-            else if (ke.equals("s")) {
-                this.solver = new StepColorer(this.mazeNodes.get(0));
-            }
-            else if (ke.equals("i")) {
-                this.solver = new SolverFight(this.mazeNodes.get(0));
-            }
-            this.playerSolving = false;
-        }
+    // Returns the node in the given column and row of this maze
+    Node nodeAt(int x, int y) {
+        return this.mazeNodes.get(x * this.height + y);
+    }
 
-        else if (ke.equals("\n")) {
-            this.mazeStarted = false;
-            this.clearFields();
-            this.initMaze();
-            this.playerSolving = false;
-            this.displayColor = false;
-            this.displayScores = false;
-        }
-        // Don't process player movement if game is not started
-        else if (!this.mazeStarted) {
-            return;
-        }
-        // Handle player movement on arrow key presses
-        else if (this.playerSolving && (ke.equals("up") || ke.equals("down")
-            || ke.equals("left") || ke.equals("right"))) {
-            this.solver.step(ke);
+    // Returns an immutable snapshot of this maze's passages, which any
+    // number of threads can solve at once. Later changes to this maze,
+    // including making it again, do not change the snapshot.
+    FrozenMaze freeze() {
+        if (this.mazeNodes.isEmpty()) {
+            throw new RuntimeException("The maze has not been made yet");
         }
+        return new FrozenMaze(this);
     }
-
 }
 
 // Examples and tests
@@ -718,10 +568,10 @@ class ExamplesMazes {
     }
 
     void testDrawIt(Tester t) {
-        Maze mainMaze = new Maze(100, 60);
-        mainMaze.initMaze();
+        MazeWorld mainMaze = new MazeWorld(100, 60);
 
-        mainMaze.bigBang(Maze.WINDOW_WIDTH * 6 / 5, Maze.WINDOW_HEIGHT, 0.001);
+        mainMaze.bigBang(MazeWorld.WINDOW_WIDTH * 6 / 5,
+            MazeWorld.WINDOW_HEIGHT, 0.001);
 
         // this class got no side mazes
     }
@@ -779,6 +629,21 @@ class ExamplesMazes {
         t.checkException(
             new RuntimeException("Given edge is not connected to this node"),
             n1, "getNeighbor", e2);
+
+        // An edge that was filtered out of n1 is only caught in debug mode
+        Node n3 = new Node(2, 2);
+        e2.setN1(n1);
+        e2.setN2(n3);
+        n3.addEdge(e2);
+        t.checkExpect(n1.getNeighbor(e2), n3);
+
+        boolean wasChecking = Node.checkEdges;
+        Node.checkEdges = true;
+        t.checkException(
+            new RuntimeException("Given edge is not connected to this node"),
+            n1, "getNeighbor", e2);
+        t.checkExpect(n3.getNeighbor(e2), n1);
+        Node.checkEdges = wasChecking;
     }
 
     void testGetNeighborEdge(Tester t) {
@@ -927,6 +792,47 @@ class ExamplesMazes {
 
     }
 
+    void testDirectionTable(Tester t) {
+        Node cn = new Node(1, 1);
+        Node un = new Node(1, 0);
+        Node rn = new Node(2, 1);
+
+        Edge ue = new Edge();
+        Edge re = new Edge();
+
+        cn.addEdge(ue);
+        un.addEdge(ue);
+        ue.setN1(cn);
+        ue.setN2(un);
+
+        t.checkExpect(Direction.fromKey("up"), Direction.UP);
+        t.checkExpect(Direction.fromKey("right"), Direction.RIGHT);
+        t.checkExpect(Direction.fromKey("x"), null);
+
+        t.checkExpect(cn.getEdgeInDir(Direction.UP), ue);
+        t.checkExpect(cn.getEdgeInDir(Direction.RIGHT), null);
+        t.checkExpect(cn.getNodeInDir(Direction.UP), un);
+        t.checkExpect(un.getNodeInDir(Direction.DOWN), cn);
+        t.checkExpect(cn.hasNodeInDir(Direction.LEFT), false);
+        t.checkExpect(cn.hasNodeInDir("sideways"), false);
+
+        // Adding an edge rebuilds the table
+        cn.addEdge(re);
+        re.setN1(cn);
+        re.setN2(rn);
+        t.checkExpect(cn.getNodeInDir(Direction.RIGHT), rn);
+
+        // and so does filtering edges out
+        cn.filterEdges(new ArrayList<Edge>(Arrays.asList(re)));
+        t.checkExpect(cn.hasNodeInDir(Direction.UP), false);
+        t.checkExpect(cn.hasNodeInDir(Direction.RIGHT), true);
+
+        t.checkException(
+            new RuntimeException(
+                "Node does not have an edge in the given direction"),
+            cn, "getNodeInDir", Direction.DOWN);
+    }
+
     void getNodeInDir(Tester t) {
 
         Node cn = new Node(1, 1);
@@ -1066,6 +972,11 @@ class ExamplesMazes {
         t.checkExpect(maze2.mazeEdges.size(), 4);
         t.checkExpect(maze2.mazeNodes.size(), 4);
 
+        // Each node's id is its index in the list of nodes
+        for (int i = 0; i < maze1.mazeNodes.size(); i += 1) {
+            t.checkExpect(maze1.mazeNodes.get(i).id, i);
+        }
+
         // Edge weights are within range
         for (Edge e : maze1.mazeEdges) {
             t.checkExpect(e.weight < 1000, true);
@@ -1103,12 +1014,16 @@ class ExamplesMazes {
         t.checkExpect(m.reps.isEmpty(), false);
         t.checkExpect(m.spanningTree.size(), 5);
 
+        m.distancesFromStart();
+        t.checkExpect(m.distances == null, false);
+
         m.clearFields();
 
         t.checkExpect(m.mazeNodes.size(), 0);
         t.checkExpect(m.mazeEdges.size(), 0);
         t.checkExpect(m.reps.isEmpty(), true);
         t.checkExpect(m.spanningTree.size(), 0);
+        t.checkExpect(m.distances, null);
     }
 
     void testInitMaze(Tester t) {
@@ -1128,6 +1043,29 @@ class ExamplesMazes {
         t.checkExpect(m.spanningTree.size(), 5);
     }
 
+    void testSeededMaze(Tester t) {
+        Maze a = new Maze(30, 20, 7);
+        Maze b = new Maze(30, 20, 7);
+        Maze c = new Maze(30, 20, 8);
+        a.initMaze();
+        b.initMaze();
+        c.initMaze();
+
+        // The same seed makes the same passages
+        boolean same = true;
+        boolean sameAsOther = true;
+        for (int i = 0; i < a.mazeNodes.size(); i += 1) {
+            for (Direction d : Direction.values()) {
+                same = same && a.mazeNodes.get(i).hasNodeInDir(d)
+                    == b.mazeNodes.get(i).hasNodeInDir(d);
+                sameAsOther = sameAsOther && a.mazeNodes.get(i).hasNodeInDir(d)
+                    == c.mazeNodes.get(i).hasNodeInDir(d);
+            }
+        }
+        t.checkExpect(same, true);
+        t.checkExpect(sameAsOther, false);
+    }
+
     void testOnlySpanningTree(Tester t) {
         Maze m = new Maze(3, 2);
 
@@ -1212,10 +1150,8 @@ class ExamplesMazes {
 
     void testOnTick(Tester t) {
 
-        Maze m = new Maze(2, 3);
-
-        m.initMaze();
-        ASolver s = new DFSSolver(m.mazeNodes.get(0));
+        MazeWorld m = new MazeWorld(2, 3);
+        ASolver s = new DFSSolver(m.maze.mazeNodes.get(0));
         m.solver = s;
 
         t.checkExpect(s.worklist.size(), 1);
@@ -1234,15 +1170,15 @@ class ExamplesMazes {
 
         // Ugly test but shows all the nodes connecting to the first node
         // have been added to the worklist
-        t.checkExpect(s.worklist.size(), m.mazeNodes.get(0).nodeEdges.size());
+        t.checkExpect(s.worklist.size(),
+            m.maze.mazeNodes.get(0).nodeEdges.size());
         // The first node has been added to visited nodes
-        t.checkExpect(s.visited.get(0), m.mazeNodes.get(0));
+        t.checkExpect(s.visited.get(0), m.maze.mazeNodes.get(0));
         // The node-edge map is no longer empty
         t.checkExpect(s.cameFromEdge.isEmpty(), false);
 
-        m.clearFields();
-        m.initMaze();
-        ASolver s1 = new DFSSolver(m.mazeNodes.get(0));
+        m.newMaze();
+        ASolver s1 = new DFSSolver(m.maze.mazeNodes.get(0));
         m.solver = s1;
 
         t.checkExpect(s1.worklist.size(), 1);
@@ -1258,11 +1194,10 @@ class ExamplesMazes {
 
     }
 
-    Maze m0;
+    MazeWorld m0;
 
     void initForOnKey() {
-        m0 = new Maze(2, 3);
-        m0.initMaze();
+        m0 = new MazeWorld(2, 3);
     }
 
     void testOnKeyEvent(Tester t) {
@@ -1270,7 +1205,7 @@ class ExamplesMazes {
 
         t.checkExpect(m0.mazeStarted, false);
 
-        ASolver dfs = new DFSSolver(m0.mazeNodes.get(0));
+        ASolver dfs = new DFSSolver(m0.maze.mazeNodes.get(0));
 
         t.checkExpect(m0.solver, null);
         m0.onKeyEvent("d");
@@ -1278,42 +1213,45 @@ class ExamplesMazes {
         t.checkExpect(m0.solver, dfs);
 
         this.initForOnKey();
-        ASolver bfs = new BFSSolver(m0.mazeNodes.get(0));
+        ASolver bfs = new BFSSolver(m0.maze.mazeNodes.get(0));
 
         t.checkExpect(m0.solver, null);
         m0.onKeyEvent("b");
         t.checkExpect(m0.solver, bfs);
 
         this.initForOnKey();
-        ASolver stepColor = new StepColorer(m0.mazeNodes.get(0));
+        ASolver stepColor = new StepColorer(m0.maze.mazeNodes.get(0),
+            m0.maze.mazeNodes.size());
 
         t.checkExpect(m0.solver, null);
         m0.onKeyEvent("s");
         t.checkExpect(m0.solver, stepColor);
 
         this.initForOnKey();
-        ASolver fight = new SolverFight(m0.mazeNodes.get(0));
+        ASolver fight = new SolverFight(m0.maze.mazeNodes.get(0));
 
         t.checkExpect(m0.solver, null);
         m0.onKeyEvent("i");
         t.checkExpect(m0.solver, fight);
 
         this.initForOnKey();
-        ASolver fbfs = new FastBFSSolver(m0.mazeNodes.get(0));
+        ASolver fbfs = new FastBFSSolver(m0.maze.mazeNodes.get(0),
+            m0.maze.mazeNodes.size());
 
         t.checkExpect(m0.solver, null);
         m0.onKeyEvent("f");
         t.checkExpect(m0.solver, fbfs);
 
         this.initForOnKey();
-        ASolver player = new Player(m0.mazeNodes.get(0));
+        ASolver player = new Player(m0.maze.mazeNodes.get(0));
 
         t.checkExpect(m0.solver, null);
         m0.onKeyEvent("p");
         t.checkExpect(m0.solver, player);
         // Color solver initialization
         this.initForOnKey();
-        ASolver color = new ColorMazeFromStart(m0.mazeNodes.get(0));
+        ASolver color = new ColorMazeFromStart(m0.maze.mazeNodes.get(0),
+            m0.maze.distancesFromStart());
         color.step();
 
         t.checkExpect(m0.solver, null);
@@ -1324,6 +1262,21 @@ class ExamplesMazes {
         // Hide color
         m0.onKeyEvent("h");
         t.checkExpect(m0.displayColor, false);
+        // Showing it again reuses the distances computed the first time
+        DistanceField cached = m0.maze.distances;
+        m0.onKeyEvent("c");
+        t.checkExpect(m0.displayColor, true);
+        t.checkExpect(m0.maze.distances == cached, true);
+        // Switching palettes recolors the current solver and any new ones
+        m0.onKeyEvent("v");
+        t.checkExpect(m0.palette, Palette.COLORBLIND_SAFE);
+        t.checkExpect(m0.solver.palette, Palette.COLORBLIND_SAFE);
+        t.checkExpect(m0.solver.needsRepaint, true);
+        m0.onKeyEvent("h");
+        m0.onKeyEvent("d");
+        t.checkExpect(m0.solver.palette, Palette.COLORBLIND_SAFE);
+        m0.onKeyEvent("v");
+        t.checkExpect(m0.palette, Palette.RAINBOW);
 
         // Start auto-solve from player
         this.initForOnKey();
@@ -1332,7 +1285,7 @@ class ExamplesMazes {
 
         t.checkExpect(m0.solver, player);
         m0.onKeyEvent("d");
-        t.checkExpect(m0.solver, new DFSSolver(m0.mazeNodes.get(0)));
+        t.checkExpect(m0.solver, new DFSSolver(m0.maze.mazeNodes.get(0)));
 
         this.initForOnKey();
         m0.solver = player;
@@ -1340,7 +1293,7 @@ class ExamplesMazes {
 
         t.checkExpect(m0.solver, player);
         m0.onKeyEvent("b");
-        t.checkExpect(m0.solver, new BFSSolver(m0.mazeNodes.get(0)));
+        t.checkExpect(m0.solver, new BFSSolver(m0.maze.mazeNodes.get(0)));
 
         this.initForOnKey();
         m0.solver = player;
@@ -1348,12 +1301,13 @@ class ExamplesMazes {
 
         t.checkExpect(m0.solver, player);
         m0.onKeyEvent("f");
-        t.checkExpect(m0.solver, new FastBFSSolver(m0.mazeNodes.get(0)));
+        t.checkExpect(m0.solver, new FastBFSSolver(m0.maze.mazeNodes.get(0),
+            m0.maze.mazeNodes.size()));
 
         // Test that pressing enter resets everything
         this.initForOnKey();
         m0.mazeStarted = true;
-        t.checkExpect(m0.mazeNodes.size() > 0, true);
+        t.checkExpect(m0.maze.mazeNodes.size() > 0, true);
         m0.playerSolving = true;
         m0.displayColor = true;
         m0.displayScores = true;
@@ -1365,20 +1319,20 @@ class ExamplesMazes {
         t.checkExpect(m0.displayScores, false);
 
         // Test player movement
-        m0 = new Maze(2, 3);
-        m0.clearFields();
-        m0.randomEdges();
-        m0.sortEdges();
-        m0.initReps();
-        m0.spanningTree = m0.mazeEdges;
-        Player pplayer = new Player(m0.mazeNodes.get(0));
+        m0 = new MazeWorld(2, 3);
+        m0.maze.clearFields();
+        m0.maze.randomEdges();
+        m0.maze.sortEdges();
+        m0.maze.initReps();
+        m0.maze.spanningTree = m0.maze.mazeEdges;
+        Player pplayer = new Player(m0.maze.mazeNodes.get(0));
         m0.solver = pplayer;
         m0.mazeStarted = true;
 
         t.checkExpect(pplayer.loc.x, player.first.x);
         t.checkExpect(pplayer.loc.y, player.first.y);
         m0.onKeyEvent("up");
-        t.checkExpect(pplayer, new Player(m0.mazeNodes.get(0)));
+        t.checkExpect(pplayer, new Player(m0.maze.mazeNodes.get(0)));
         t.checkExpect(pplayer.loc.x, player.first.x);
         t.checkExpect(pplayer.loc.y, player.first.y);
 
@@ -0,0 +1,221 @@
+import tester.*;
+import java.io.*;
+import java.util.*;
+
+// Makes and solves mazes from the command line with no window, printing how
+// long each part took and how much memory it used, one line of key=value
+// pairs per part. Only the maze and solver classes are needed to run it,
+// not the tester or javalib, so it runs on machines with no display:
+//     java -cp out MazeCli 500 300 bfs fast --seed 7 --runs 3
+class MazeCli {
+
+    static final String USAGE = "usage: MazeCli WIDTH HEIGHT [SOLVER...]"
+        + " [--seed N] [--runs N]\n"
+        + "solvers: dfs bfs fast colorer fight distances (default: all)";
+    static final String[] SOLVERS = { "dfs", "bfs", "fast", "colorer",
+        "fight", "distances" };
+
+    int width; // Width in nodes of each maze
+    int height; // Height in nodes of each maze
+    ArrayList<String> solvers; // The solvers to solve each maze with
+    boolean seeded; // Was a seed given?
+    long seed; // The seed of the first maze, if one was given
+    int runs; // How many mazes to make and solve
+
+    // Constructor from the command line's arguments
+    MazeCli(String[] args) {
+        this.solvers = new ArrayList<String>();
+        this.seeded = false;
+        this.runs = 1;
+
+        ArrayList<String> sizes = new ArrayList<String>();
+        for (int i = 0; i < args.length; i += 1) {
+            if (args[i].equals("--seed") || args[i].equals("--runs")) {
+                if (i + 1 == args.length) {
+                    throw new RuntimeException(args[i] + " needs a number");
+                }
+                long n = MazeCli.number(args[i + 1]);
+                if (args[i].equals("--seed")) {
+                    this.seeded = true;
+                    this.seed = n;
+                }
+                else {
+                    this.runs = (int) n;
+                }
+                i += 1;
+            }
+            else if (Arrays.asList(MazeCli.SOLVERS).contains(args[i])) {
+                this.solvers.add(args[i]);
+            }
+            else if (sizes.size() < 2) {
+                sizes.add(args[i]);
+            }
+            else {
+                throw new RuntimeException("Unknown solver: " + args[i]);
+            }
+        }
+
+        if (sizes.size() < 2) {
+            throw new RuntimeException("A maze needs a width and a height");
+        }
+        this.width = (int) MazeCli.number(sizes.get(0));
+        this.height = (int) MazeCli.number(sizes.get(1));
+        if (this.width < 1 || this.height < 1 || this.runs < 1) {
+            throw new RuntimeException("Sizes and runs must be positive");
+        }
+        if (this.solvers.isEmpty()) {
+            this.solvers.addAll(Arrays.asList(MazeCli.SOLVERS));
+        }
+    }
+
+    public static void main(String[] args) {
+        MazeCli cli;
+        try {
+            cli = new MazeCli(args);
+        }
+        catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.err.println(MazeCli.USAGE);
+            System.exit(2);
+            return;
+        }
+        cli.run(System.out);
+    }
+
+    // EFFECT: Makes and solves this driver's mazes, printing a line for
+    // each maze made, each solve, and the memory used by all of them
+    void run(PrintStream out) {
+        for (int r = 0; r < this.runs; r += 1) {
+            Maze maze;
+            if (this.seeded) {
+                maze = new Maze(this.width, this.height, this.seed + r);
+            }
+            else {
+                maze = new Maze(this.width, this.height);
+            }
+
+            maze.initMaze();
+            out.println("run=" + r + " " + maze.generationMetrics());
+
+            for (String name : this.solvers) {
+                // Made inside the timing, since the distances solver does
+                // all its work up front
+                long allocated = MemoryStats.allocatedBytes();
+                long start = System.nanoTime();
+                ASolver solver = MazeCli.newSolver(name, maze);
+                solver.solve();
+                long nanos = System.nanoTime() - start;
+                out.println("run=" + r + " " + solver.metrics()
+                    + " nanos=" + nanos + " allocatedBytes="
+                    + MemoryStats.allocatedSince(allocated));
+            }
+        }
+
+        Runtime rt = Runtime.getRuntime();
+        out.println("peakHeapBytes=" + MemoryStats.peakHeapBytes()
+            + " heapUsedBytes=" + (rt.totalMemory() - rt.freeMemory())
+            + " maxHeapBytes=" + rt.maxMemory());
+    }
+
+    // Returns a new solver of the given kind, at the start of the given maze
+    static ASolver newSolver(String name, Maze maze) {
+        Node start = maze.mazeNodes.get(0);
+        if (name.equals("dfs")) {
+            return new DFSSolver(start);
+        }
+        else if (name.equals("bfs")) {
+            return new BFSSolver(start);
+        }
+        else if (name.equals("fast")) {
+            return new FastBFSSolver(start, maze.mazeNodes.size());
+        }
+        else if (name.equals("colorer")) {
+            return new StepColorer(start, maze.mazeNodes.size());
+        }
+        else if (name.equals("fight")) {
+            return new SolverFight(start);
+        }
+        else if (name.equals("distances")) {
+            return new ColorMazeFromStart(start, maze.distancesFromStart());
+        }
+        throw new RuntimeException("Unknown solver: " + name);
+    }
+
+    // Returns the given argument as a number
+    static long number(String arg) {
+        try {
+            return Long.parseLong(arg);
+        }
+        catch (NumberFormatException e) {
+            throw new RuntimeException("Not a number: " + arg);
+        }
+    }
+}
+
+class ExamplesMazeCli {
+
+    void testArguments(Tester t) {
+        MazeCli cli = new MazeCli(new String[] { "30", "20", "bfs", "--seed",
+            "7", "fast", "--runs", "2" });
+        t.checkExpect(cli.width, 30);
+        t.checkExpect(cli.height, 20);
+        t.checkExpect(cli.solvers, new ArrayList<String>(
+            Arrays.asList("bfs", "fast")));
+        t.checkExpect(cli.seeded, true);
+        t.checkExpect(cli.seed, 7L);
+        t.checkExpect(cli.runs, 2);
+
+        // Every solver, unless some are named
+        t.checkExpect(new MazeCli(new String[] { "3", "4" }).solvers.size(),
+            MazeCli.SOLVERS.length);
+
+        t.checkConstructorException(
+            new RuntimeException("A maze needs a width and a height"),
+            "MazeCli", (Object) new String[] { "3" });
+        t.checkConstructorException(new RuntimeException("Not a number: x"),
+            "MazeCli", (Object) new String[] { "3", "x" });
+        t.checkConstructorException(
+            new RuntimeException("Unknown solver: astar"),
+            "MazeCli", (Object) new String[] { "3", "4", "astar" });
+        t.checkConstructorException(
+            new RuntimeException("--runs needs a number"),
+            "MazeCli", (Object) new String[] { "3", "4", "--runs" });
+        t.checkConstructorException(
+            new RuntimeException("Sizes and runs must be positive"),
+            "MazeCli", (Object) new String[] { "0", "4" });
+    }
+
+    void testRun(Tester t) {
+        MazeCli cli = new MazeCli(new String[] { "12", "8", "--seed", "3",
+            "--runs", "2" });
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        cli.run(new PrintStream(bytes));
+        String[] lines = bytes.toString().split("\n");
+
+        // A line per maze, a line per solve of each, and one for memory
+        t.checkExpect(lines.length, 2 * (1 + MazeCli.SOLVERS.length) + 1);
+        t.checkExpect(lines[0].startsWith("run=0 maze=12x8 "), true);
+        t.checkExpect(lines[1].startsWith("run=0 solver=DFSSolver solved=true"),
+            true);
+        t.checkExpect(lines[7].startsWith("run=1 maze=12x8 "), true);
+        t.checkExpect(lines[lines.length - 1].startsWith("peakHeapBytes="),
+            true);
+
+        // The same seed makes the same maze, so solves the same way
+        Maze m = new Maze(12, 8, 3);
+        m.initMaze();
+        BFSSolver b = new BFSSolver(m.mazeNodes.get(0));
+        b.solve();
+        t.checkExpect(lines[2].startsWith("run=0 " + b.metrics() + " "), true);
+    }
+
+    void testNewSolver(Tester t) {
+        Maze m = new Maze(5, 4);
+        m.initMaze();
+        for (String name : MazeCli.SOLVERS) {
+            t.checkExpect(MazeCli.newSolver(name, m).solve(), true);
+        }
+        t.checkException(new RuntimeException("Unknown solver: x"),
+            new MazeCli(new String[] { "1", "1" }), "newSolver", "x", m);
+    }
+}
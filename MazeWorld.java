@@ -0,0 +1,609 @@
+import tester.*;
+import javalib.impworld.*;
+import java.awt.Color;
+import javalib.worldimages.*;
+import java.util.*;
+
+// A window showing a maze, with menus, for watching solvers solve it or
+// solving it yourself
+class MazeWorld extends World {
+
+    Maze maze; // The maze shown
+
+    Viewport view; // The part of the maze shown, and how big it is drawn
+
+    final static int WINDOW_WIDTH = 1000; // Width of the animation window
+    final static int WINDOW_HEIGHT = 600; // Height of the animation window
+
+    // The menus never change, so their text is only laid out once
+    final static MenuOverlay MAIN_MENU = MazeWorld.mainMenu();
+    final static MenuOverlay PLAYER_MENU = MazeWorld.playerInGameMenu();
+    final static MenuOverlay IN_GAME_MENU = MazeWorld.inGameMenu();
+
+    // The walls, outline and menu background, drawn the first time they are
+    // needed and kept until the maze changes
+    PixelLayer staticLayer;
+
+    // The colored cells under the walls, kept between frames so that only
+    // the cells that changed have to be drawn
+    CellCanvas cellLayer;
+    ASolver shownSolver; // The solver drawn on cellLayer, if any
+
+    // The panel showing how long making the maze took, drawn the first time
+    // it is needed after the maze changes
+    WorldImage scoresPanel;
+
+    ASolver solver;
+    Palette palette; // The colors solvers color the maze with
+
+    // Should solvers run on their own thread, instead of a step per tick?
+    // Off unless the JVM is run with -Dmaze.threadedSolvers=true
+    boolean threaded;
+    SolverPipeline pipeline; // Runs the shown solver when threaded
+
+    // The main menu's line for switching palettes, and the palette it offers
+    WorldImage paletteOption;
+    Palette paletteOptionFor;
+
+    boolean mazeStarted;
+    boolean displayColor;
+    boolean playerSolving;
+    boolean displayScores;
+
+    // Constructor for a window showing the given maze, which is generated
+    // first if it has not been yet. No solver is chosen.
+    MazeWorld(Maze maze) {
+        this.maze = maze;
+        if (maze.mazeNodes.isEmpty()) {
+            maze.initMaze();
+        }
+        this.view = new Viewport(maze.width, maze.height,
+            MazeWorld.WINDOW_WIDTH, MazeWorld.WINDOW_HEIGHT);
+
+        this.mazeStarted = false;
+        this.displayColor = false;
+        this.playerSolving = false;
+        this.displayScores = false;
+        this.palette = Palette.RAINBOW;
+        this.threaded = Boolean.getBoolean("maze.threadedSolvers");
+    }
+
+    // Constructor for a new maze of the given size
+    MazeWorld(int width, int height) {
+        this(new Maze(width, height));
+    }
+
+    // Constructor that also initializes the solver
+    MazeWorld(int width, int height, boolean bfs) {
+
+        this(width, height);
+
+        if (bfs) {
+            this.solver = new BFSSolver(this.maze.mazeNodes.get(0));
+        }
+        else {
+            this.solver = new DFSSolver(this.maze.mazeNodes.get(0));
+        }
+
+    }
+
+    // Constructor that initializes maze to be solved by player
+    MazeWorld() {
+        this(100, 60);
+        this.solver = new Player(this.maze.mazeNodes.get(0));
+    }
+
+    // Returns the parts of the scene that do not change while this maze is
+    // up and in the same view: the walls, the outline and the menu
+    // background
+    // EFFECT: Draws them into a cached layer the first time after the maze
+    // or the view changes
+    PixelLayer staticLayer() {
+        if (this.staticLayer == null) {
+            PixelLayer layer = new PixelLayer(MazeWorld.WINDOW_WIDTH * 6 / 5,
+                MazeWorld.WINDOW_HEIGHT);
+            Viewport v = this.view;
+
+            // Draw the walls of the part of the maze in view, if the cells
+            // are big enough to see them
+            if (v.showsWalls()) {
+                for (int x = v.left; x < v.left + v.columns(); x += 1) {
+                    for (int y = v.top; y < v.top + v.rows(); y += 1) {
+                        this.maze.nodeAt(x, y).renderWallsOnto(layer, v);
+                    }
+                }
+            }
+
+            // Two pixel outline around the maze
+            int left = v.screenX(0);
+            int top = v.screenY(0);
+            int right = v.screenX(this.maze.width);
+            int bottom = v.screenY(this.maze.height);
+            layer.fillRect(left, top, right - left, 2, Color.black);
+            layer.fillRect(left, bottom - 2, right - left, 2, Color.black);
+            layer.fillRect(left, top, 2, bottom - top, Color.black);
+            layer.fillRect(right - 2, top, 2, bottom - top, Color.black);
+
+            // Menu background
+            layer.fillRect(MazeWorld.WINDOW_WIDTH, 0,
+                MazeWorld.WINDOW_WIDTH / 5, MazeWorld.WINDOW_HEIGHT,
+                Color.black);
+
+            this.staticLayer = layer;
+        }
+        return this.staticLayer;
+    }
+
+    // EFFECT: Makes a new maze the same size as the old one, and throws
+    // away everything drawn for the old one
+    void newMaze() {
+        // The solver's thread must not walk the maze while it is remade
+        this.stopPipeline();
+        this.maze.clearFields();
+        this.maze.initMaze();
+        this.staticLayer = null;
+        this.cellLayer = null;
+        this.scoresPanel = null;
+    }
+
+    // EFFECT: Throws away everything drawn for the old view, so that the
+    // next frame draws the part of the maze now in view
+    void viewChanged() {
+        this.staticLayer = null;
+        this.cellLayer = null;
+    }
+
+    // Returns the layer of colored cells, up to date for this frame
+    // EFFECT: Draws just the cells the solver changed since the last frame,
+    // or redraws every cell when the solver or maze changed. When threaded,
+    // starts the shown solver on its own thread, and stops the old one.
+    CellCanvas cellLayer() {
+        ASolver shown = null;
+        if (this.mazeStarted || this.displayColor) {
+            shown = this.solver;
+        }
+
+        if (this.cellLayer == null || shown != this.shownSolver
+            || (this.pipeline == null && shown != null && shown.needsRepaint)) {
+
+            this.stopPipeline();
+            this.cellLayer = this.blankCells();
+
+            if (shown == null) {
+                this.cellLayer.paintCell(this.maze.mazeNodes.get(0),
+                    ASolver.START_COLOR);
+            }
+            else if (this.threaded && shown.canStep()) {
+                // The solver's thread sends everything it has drawn first
+                this.pipeline = new SolverPipeline(shown);
+                this.pipeline.start();
+            }
+            else {
+                shown.renderOnto(this.cellLayer);
+            }
+            this.shownSolver = shown;
+        }
+        else if (this.pipeline == null && shown != null) {
+            shown.flushChanges(this.cellLayer);
+        }
+
+        if (this.pipeline != null) {
+            for (ChangeBatch b : this.pipeline.drain()) {
+                if (b.repaint) {
+                    this.cellLayer = this.blankCells();
+                }
+                b.replayOnto(this.cellLayer);
+            }
+            // Once everything it sent is drawn, the solver is this thread's
+            // again, and changes to it are drawn the unthreaded way
+            if (this.pipeline.finished()) {
+                SolverPipeline finished = this.pipeline;
+                this.stopPipeline();
+                finished.checkFailure();
+                if (shown.palette != this.palette) {
+                    shown.usePalette(this.palette);
+                }
+            }
+        }
+
+        return this.cellLayer;
+    }
+
+    // Returns a new layer of cells with only the end drawn on it
+    CellCanvas blankCells() {
+        CellCanvas cells = new CellCanvas(this.view);
+        cells.paintCell(this.maze.endNode, Color.magenta);
+        return cells;
+    }
+
+    // EFFECT: Stops the thread running the shown solver, if there is one
+    void stopPipeline() {
+        if (this.pipeline != null) {
+            this.pipeline.stop();
+            this.pipeline = null;
+        }
+    }
+
+    // The menu that displays before maze solving begins, without the line
+    // for switching palettes (see paletteOption)
+    static MenuOverlay mainMenu() {
+        int unit = MazeWorld.WINDOW_WIDTH / 24;
+
+        WorldImage mainMenu = new TextImage("Menu", 20, Color.red);
+
+        WorldImage startDFS = new BesideImage(
+            new TextImage("d: ", 15, Color.red),
+            new TextImage("Depth-First Search", 15, Color.cyan));
+        WorldImage startBFS = new BesideImage(
+            new TextImage("b: ", 15, Color.red),
+            new TextImage("Breadth-First Search", 15, Color.cyan));
+        WorldImage startFastBFS = new BesideImage(
+            new TextImage("f: ", 15, Color.red),
+            new TextImage("Fast Breadth-First Search", 15, Color.cyan));
+        WorldImage startPlayer = new BesideImage(
+            new TextImage("p: ", 15, Color.red),
+            new TextImage("Solve it yourself!", 15, Color.cyan));
+        WorldImage colorStep = new BesideImage(
+            new TextImage("s: ", 15, Color.red),
+            new AboveImage(new TextImage("Color maze by depth", 15, Color.cyan),
+                new TextImage("while solving w/ FBFS", 15, Color.cyan)));
+        WorldImage color = new BesideImage(new TextImage("c: ", 15, Color.red),
+            new TextImage("Color maze by depth", 15, Color.cyan));
+        WorldImage hide = new BesideImage(new TextImage("h: ", 15, Color.red),
+            new AboveImage(
+                new TextImage("Hide coloring (if not", 15, Color.cyan),
+                new TextImage("colored solved maze)", 15, Color.cyan)));
+        WorldImage fight = new BesideImage(new TextImage("i: ", 15, Color.red),
+            new TextImage("SOLVER FIGHT!", 15, Color.cyan));
+        WorldImage colors = new AboveImage(
+            new TextImage("Blue = BFS (Slow)", 15, new Color(50, 153, 255)),
+            new TextImage("Red = DFS", 15, Color.red));
+        WorldImage fightSolver = new AboveImage(fight, colors);
+
+        WorldImage forNew = new TextImage("For a different maze,", 15,
+            Color.red);
+        WorldImage pressEnter = new TextImage("press enter", 15, Color.red);
+        WorldImage enterForNew = new AboveImage(forNew, pressEnter);
+
+        WorldImage zoom = new BesideImage(new TextImage("+/-: ", 15, Color.red),
+            new TextImage("Zoom in/out", 15, Color.cyan));
+        WorldImage scroll = new BesideImage(
+            new TextImage("arrows: ", 15, Color.red),
+            new TextImage("Scroll the maze", 15, Color.cyan));
+
+        return new MenuOverlay()
+            .add(mainMenu, unit)
+            .add(startDFS, unit * 2)
+            .add(startBFS, unit * 3)
+            .add(startFastBFS, unit * 4)
+            .add(startPlayer, unit * 5)
+            .add(colorStep, unit * 6)
+            .add(color, unit * 7)
+            .add(hide, unit * 8)
+            .add(fightSolver, (int) (unit * 9.5))
+            .add(enterForNew, unit * 12)
+            .add(zoom, unit * 13)
+            .add(scroll, unit * 14);
+    }
+
+    // The menu that displays while player is solving maze
+    static MenuOverlay playerInGameMenu() {
+        int unit = MazeWorld.WINDOW_WIDTH / 24;
+
+        WorldImage mainMenu = new TextImage("Menu", 20, Color.red);
+        WorldImage stuck = new TextImage("Stuck? Finish the maze by", 15,
+            Color.cyan);
+        WorldImage forHelp = new AboveImage(stuck,
+            new TextImage("choosing an algorithm:", 15, Color.cyan));
+        WorldImage startDFS = new BesideImage(
+            new TextImage("d: ", 15, Color.red),
+            new TextImage("Depth-First Search", 15, Color.cyan));
+        WorldImage startBFS = new BesideImage(
+            new TextImage("b: ", 15, Color.red),
+            new TextImage("Breadth-First Search", 15, Color.cyan));
+        WorldImage startFastBFS = new BesideImage(
+            new TextImage("f: ", 15, Color.red),
+            new TextImage("Fast Breadth-First Search", 15, Color.cyan));
+        WorldImage colorStep = new BesideImage(
+            new TextImage("s: ", 15, Color.red),
+            new AboveImage(new TextImage("Color maze by depth", 15, Color.cyan),
+                new TextImage("while solving w/ FBFS", 15, Color.cyan)));
+        WorldImage fight = new BesideImage(new TextImage("i: ", 15, Color.red),
+            new TextImage("SOLVER FIGHT!", 15, Color.cyan));
+        WorldImage colors = new AboveImage(
+            new TextImage("Blue = BFS (Slow)", 15, new Color(50, 153, 255)),
+            new TextImage("Red = DFS", 15, Color.red));
+        WorldImage fightSolver = new AboveImage(fight, colors);
+
+        return new MenuOverlay()
+            .add(mainMenu, unit)
+            .add(forHelp, unit * 2)
+            .add(startDFS, unit * 4)
+            .add(startBFS, unit * 5)
+            .add(startFastBFS, unit * 6)
+            .add(colorStep, unit * 7)
+            .add(fightSolver, (int) (unit * 8.5));
+    }
+
+    // The menu that displays while maze is being auto-solved
+    static MenuOverlay inGameMenu() {
+        int unit = MazeWorld.WINDOW_WIDTH / 24;
+
+        WorldImage mainMenu = new TextImage("Menu", 20, Color.red);
+        WorldImage pressEnter = new TextImage("Press enter to stop solving", 15,
+            Color.cyan);
+        WorldImage stopSolving = new TextImage("and start a new maze.", 15,
+            Color.cyan);
+        WorldImage msg = new AboveImage(pressEnter, stopSolving);
+        WorldImage scores = new BesideImage(
+            new TextImage("x/y: ", 15, Color.red),
+            new TextImage("Show/hide maze stats", 15, Color.cyan));
+
+        return new MenuOverlay()
+            .add(mainMenu, unit)
+            .add(msg, unit * 3)
+            .add(scores, unit * 5);
+    }
+
+    // Returns the main menu's line for switching palettes, which is only
+    // remade when the palette it names changes
+    // EFFECT: Caches the line in paletteOption
+    WorldImage paletteOption() {
+        Palette other = this.palette.next();
+        if (this.paletteOption == null || this.paletteOptionFor != other) {
+            this.paletteOption = new BesideImage(
+                new TextImage("v: ", 15, Color.red),
+                new TextImage("Use " + other.name + " colors", 15,
+                    Color.cyan));
+            this.paletteOptionFor = other;
+        }
+        return this.paletteOption;
+    }
+
+    // Returns the panel of how long making this maze took, which is only
+    // remade when the maze is
+    // EFFECT: Caches the panel in scoresPanel
+    WorldImage scoresPanel() {
+        if (this.scoresPanel == null) {
+            this.scoresPanel = MazeWorld.panel(this.maze.metrics.lines());
+        }
+        return this.scoresPanel;
+    }
+
+    // Returns a panel of the solver's counters as they are now, or as its
+    // thread last sent them along with its step and frame rates. They
+    // change every step, so it is made again every frame.
+    WorldImage solverPanel() {
+        if (this.pipeline != null) {
+            return MazeWorld.panel(this.pipeline.lines());
+        }
+        return MazeWorld.panel(this.solver.metrics().lines());
+    }
+
+    // Returns the given lines of text, in white on a black box
+    static WorldImage panel(ArrayList<String> lines) {
+        WorldImage text = new TextImage("", 12, Color.white);
+        for (String line : lines) {
+            text = new AboveImage(text, new TextImage(line, 12, Color.white));
+        }
+        return new OverlayImage(text,
+            new RectangleImage((int) text.getWidth() + 10,
+                (int) text.getHeight() + 10, OutlineMode.SOLID, Color.black));
+    }
+
+    // EFFECT: Adds the menu text to bg
+    // Draws the menu that displays before maze solving begins
+    void drawMainMenu(WorldScene bg, int offset) {
+        MazeWorld.MAIN_MENU.placeOnto(bg, offset);
+        bg.placeImageXY(this.paletteOption(), offset,
+            MazeWorld.WINDOW_WIDTH / 24 * 11);
+    }
+
+    // EFFECT: Adds the menu text to bg
+    // Draws the menu that displays while player is solving maze
+    void drawPlayerInGameMenu(WorldScene bg, int offset) {
+        MazeWorld.PLAYER_MENU.placeOnto(bg, offset);
+    }
+
+    // EFFECT: Adds the menu text to bg
+    // Draws the menu that displays while maze is being auto-solved
+    void drawInGameMenu(WorldScene bg, int offset) {
+        MazeWorld.IN_GAME_MENU.placeOnto(bg, offset);
+    }
+
+    // Draws the maze
+    public WorldScene makeScene() {
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        boolean wallsRedrawn = this.staticLayer == null;
+        WorldScene bg = new WorldScene(MazeWorld.WINDOW_WIDTH,
+            MazeWorld.WINDOW_HEIGHT);
+
+        this.cellLayer().layer.placeOnto(bg);
+
+        // Walls, outline and menu background never change, so they are only
+        // drawn once per maze
+        this.staticLayer().placeOnto(bg);
+
+        int menuCenter = MazeWorld.WINDOW_WIDTH + MazeWorld.WINDOW_WIDTH / 10;
+
+        if (!this.mazeStarted) {
+            this.drawMainMenu(bg, menuCenter);
+        }
+        else if (this.playerSolving) {
+            this.drawPlayerInGameMenu(bg, menuCenter);
+        }
+        else {
+            this.drawInGameMenu(bg, menuCenter);
+        }
+
+        if (this.displayScores) {
+            WorldImage scores = this.scoresPanel();
+            bg.placeImageXY(scores, (int) scores.getWidth() / 2,
+                (int) scores.getHeight() / 2);
+            if (this.solver != null) {
+                WorldImage counters = this.solverPanel();
+                bg.placeImageXY(counters, (int) counters.getWidth() / 2,
+                    (int) (scores.getHeight() + counters.getHeight() / 2));
+            }
+        }
+
+        event.finish(this, wallsRedrawn);
+        return bg;
+    }
+
+    // Steps one step forward in maze if the maze is active but not solved,
+    // and its solver is not running on its own thread.
+    public void onTick() {
+
+        // A threaded solver steps itself
+        if (this.pipeline != null) {
+            return;
+        }
+        else if (!this.mazeStarted || this.solver.solved) {
+            return;
+        }
+        else {
+            SolveEvent event = new SolveEvent();
+            event.begin();
+            this.solver.step();
+            event.finish(this.solver, 1);
+        }
+    }
+
+    // Handles key events
+    // EFFECT: May initialize this maze's solver, reset all maze-related fields,
+    // or move player position if player is solving maze.
+    public void onKeyEvent(String ke) {
+
+        Direction dir = Direction.fromKey(ke);
+
+        // If the game is not started, start it when these keys are pressed
+        if (!this.mazeStarted
+            && (ke.equals("d") || ke.equals("b") || ke.equals("p")
+                || ke.equals("f") || ke.equals("s") || ke.equals("i"))) {
+
+            this.displayColor = false;
+            this.displayScores = false;
+
+            if (ke.equals("d")) {
+                this.solver = new DFSSolver(this.maze.mazeNodes.get(0));
+            }
+            else if (ke.equals("b")) {
+                this.solver = new BFSSolver(this.maze.mazeNodes.get(0));
+            }
+            else if (ke.equals("p")) {
+                this.solver = new Player(this.maze.mazeNodes.get(0));
+                this.playerSolving = true;
+            }
+            else if (ke.equals("f")) {
+                this.solver = new FastBFSSolver(this.maze.mazeNodes.get(0),
+                    this.maze.mazeNodes.size());
+            }
+            else if (ke.equals("s")) {
+                this.solver = new StepColorer(this.maze.mazeNodes.get(0),
+                    this.maze.mazeNodes.size());
+            }
+            else if (ke.equals("i")) {
+                this.solver = new SolverFight(this.maze.mazeNodes.get(0));
+            }
+            this.solver.palette = this.palette;
+            this.mazeStarted = true;
+        }
+
+        // display maze coloring when "c" is pressed
+        else if (!this.mazeStarted && !this.displayColor && ke.equals("c")) {
+            this.solver = new ColorMazeFromStart(this.maze.mazeNodes.get(0),
+                this.maze.distancesFromStart());
+            this.solver.palette = this.palette;
+            this.solver.step();
+            this.displayColor = true;
+        }
+        // hide maze coloring when "h" is pressed
+        else if (this.displayColor && ke.equals("h")) {
+            this.displayColor = false;
+        }
+        // switch to the other color palette when "v" is pressed
+        else if (ke.equals("v")) {
+            this.palette = this.palette.next();
+            // A solver on its own thread may only be changed by that thread
+            if (this.pipeline != null) {
+                this.pipeline.usePalette(this.palette);
+            }
+            else if (this.solver != null) {
+                this.solver.usePalette(this.palette);
+            }
+        }
+        // show how long making the maze took with "x", and hide it with "y"
+        else if (!this.displayScores && ke.equals("x")) {
+            this.displayScores = true;
+        }
+        else if (this.displayScores && ke.equals("y")) {
+            this.displayScores = false;
+        }
+        // zoom in and out with "+" (or "=") and "-"
+        else if (ke.equals("+") || ke.equals("=")) {
+            this.view.zoomIn();
+            this.viewChanged();
+        }
+        else if (ke.equals("-")) {
+            this.view.zoomOut();
+            this.viewChanged();
+        }
+        // arrow keys scroll the maze unless they are moving the player
+        else if (!this.playerSolving && dir != null) {
+            this.view.pan(dir);
+            this.viewChanged();
+        }
+
+        // if the player presses b, d, f, or s to finish solving
+        else if (this.mazeStarted && this.playerSolving
+            && (ke.equals("s") || ke.equals("d") || ke.equals("b")
+                || ke.equals("f") || ke.equals("i"))) {
+            if (ke.equals("d")) {
+                this.solver = new DFSSolver(this.maze.mazeNodes.get(0));
+            }
+            else if (ke.equals("b")) {
+                this.solver = new BFSSolver(this.maze.mazeNodes.get(0));
+            }
+            else if (ke.equals("f")) {
+                this.solver = new FastBFSSolver(this.maze.mazeNodes.get(0),
+                    this.maze.mazeNodes.size());
+            }
+
+            else if (ke.equals("s")) {
+                this.solver = new StepColorer(this.maze.mazeNodes.get(0),
+                    this.maze.mazeNodes.size());
+            }
+            else if (ke.equals("i")) {
+                this.solver = new SolverFight(this.maze.mazeNodes.get(0));
+            }
+            this.solver.palette = this.palette;
+            this.playerSolving = false;
+        }
+
+        else if (ke.equals("\n")) {
+            this.mazeStarted = false;
+            this.newMaze();
+            this.playerSolving = false;
+            this.displayColor = false;
+            this.displayScores = false;
+        }
+        // Don't process player movement if game is not started
+        else if (!this.mazeStarted) {
+            return;
+        }
+        // Handle player movement on arrow key presses
+        else if (this.playerSolving && dir != null) {
+            this.solver.step(dir);
+
+            // Keep the player in view
+            Node loc = ((Player) this.solver).loc;
+            if (!this.view.shows(loc)) {
+                this.view.centerOn(loc.x, loc.y);
+                this.viewChanged();
+            }
+        }
+    }
+
+}
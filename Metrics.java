@@ -0,0 +1,367 @@
+import tester.*;
+import java.lang.management.*;
+import java.util.*;
+import javalib.worldimages.*;
+
+// How long each phase of making a maze took, and how much work each did.
+// A maze fills one of these in as initMaze runs; anyone reading it should
+// take a snapshot, since the next maze starts over in the maze's own copy.
+class GenerationMetrics {
+
+    int width; // Width in nodes of the maze measured
+    int height; // Height in nodes of the maze measured
+
+    int edgesCreated; // How many edges randomEdges made
+    long edgeNanos; // How long randomEdges took
+    long sortNanos; // How long sortEdges took
+    long repsNanos; // How long initReps took
+    long treeNanos; // How long createSpanningTree took
+    long filterNanos; // How long onlySpanningEdges took
+
+    // How many bytes each phase allocated, or -1 where the JVM does not
+    // count them
+    long edgeBytes;
+    long sortBytes;
+    long repsBytes;
+    long treeBytes;
+    long filterBytes;
+
+    long findRepCalls; // How many times findRep was called
+    long findRepSteps; // How many links findRep followed, in all
+    int edgesAccepted; // How many edges joined the spanning tree
+
+    // Constructor for a maze of the given size that has not been made yet
+    GenerationMetrics(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    // Returns a copy of these metrics as they are now
+    GenerationMetrics snapshot() {
+        GenerationMetrics copy = new GenerationMetrics(this.width, this.height);
+        copy.edgesCreated = this.edgesCreated;
+        copy.edgeNanos = this.edgeNanos;
+        copy.sortNanos = this.sortNanos;
+        copy.repsNanos = this.repsNanos;
+        copy.treeNanos = this.treeNanos;
+        copy.filterNanos = this.filterNanos;
+        copy.edgeBytes = this.edgeBytes;
+        copy.sortBytes = this.sortBytes;
+        copy.repsBytes = this.repsBytes;
+        copy.treeBytes = this.treeBytes;
+        copy.filterBytes = this.filterBytes;
+        copy.findRepCalls = this.findRepCalls;
+        copy.findRepSteps = this.findRepSteps;
+        copy.edgesAccepted = this.edgesAccepted;
+        return copy;
+    }
+
+    // How long every phase took, together
+    long totalNanos() {
+        return this.edgeNanos + this.sortNanos + this.repsNanos
+            + this.treeNanos + this.filterNanos;
+    }
+
+    // How many bytes every phase allocated, together
+    long totalBytes() {
+        return this.edgeBytes + this.sortBytes + this.repsBytes
+            + this.treeBytes + this.filterBytes;
+    }
+
+    // The name of the phase that took the longest
+    String slowestPhase() {
+        String[] names = { "edges", "sort", "reps", "tree", "filter" };
+        long[] nanos = { this.edgeNanos, this.sortNanos, this.repsNanos,
+            this.treeNanos, this.filterNanos };
+        int slowest = 0;
+        for (int i = 1; i < nanos.length; i += 1) {
+            if (nanos[i] > nanos[slowest]) {
+                slowest = i;
+            }
+        }
+        return names[slowest];
+    }
+
+    // How many links findRep followed per call, on average
+    double averageFindRepSteps() {
+        if (this.findRepCalls == 0) {
+            return 0;
+        }
+        return (double) this.findRepSteps / this.findRepCalls;
+    }
+
+    // Returns these metrics as lines of text, one per phase, for showing
+    // over the maze
+    ArrayList<String> lines() {
+        ArrayList<String> lines = new ArrayList<String>();
+        lines.add("Maze " + this.width + "x" + this.height + ": "
+            + GenerationMetrics.millis(this.totalNanos()) + " ms");
+        lines.add("edges: " + this.edgesCreated + " in "
+            + GenerationMetrics.millis(this.edgeNanos) + " ms");
+        lines.add("sort: " + GenerationMetrics.millis(this.sortNanos) + " ms");
+        lines.add("reps: " + GenerationMetrics.millis(this.repsNanos) + " ms");
+        lines.add("tree: " + this.edgesAccepted + " edges, "
+            + this.findRepCalls + " finds, "
+            + String.format("%.1f", this.averageFindRepSteps())
+            + " steps each, " + GenerationMetrics.millis(this.treeNanos)
+            + " ms");
+        lines.add("filter: " + GenerationMetrics.millis(this.filterNanos)
+            + " ms");
+        return lines;
+    }
+
+    // Returns these metrics as one line of key=value pairs, for logs
+    public String toString() {
+        return "maze=" + this.width + "x" + this.height
+            + " edges=" + this.edgesCreated
+            + " edgeNanos=" + this.edgeNanos
+            + " sortNanos=" + this.sortNanos
+            + " repsNanos=" + this.repsNanos
+            + " treeNanos=" + this.treeNanos
+            + " findRepCalls=" + this.findRepCalls
+            + " findRepSteps=" + this.findRepSteps
+            + " accepted=" + this.edgesAccepted
+            + " filterNanos=" + this.filterNanos
+            + " totalNanos=" + this.totalNanos()
+            + " slowest=" + this.slowestPhase()
+            + " allocatedBytes=" + this.totalBytes();
+    }
+
+    // Returns the given nanoseconds as milliseconds, to two places
+    static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1e6);
+    }
+}
+
+// A solver's counters at one moment: how much work it has done, and how
+// much memory its worklist has needed. Taken from a solver while it steps,
+// or once it is done as its final report.
+class SolverMetrics {
+
+    String solver; // The kind of solver counted
+    int nodesExpanded; // How many nodes it has visited
+    int duplicatePushes; // How many nodes it put on its worklist again
+    int peakWorklist; // The most nodes its worklist has held at once
+    int pathLength; // How many nodes are on its finished path (0 if none)
+    boolean solved; // Has it reached the end?
+
+    // Constructor
+    SolverMetrics(String solver, int nodesExpanded, int duplicatePushes,
+        int peakWorklist, int pathLength, boolean solved) {
+        this.solver = solver;
+        this.nodesExpanded = nodesExpanded;
+        this.duplicatePushes = duplicatePushes;
+        this.peakWorklist = peakWorklist;
+        this.pathLength = pathLength;
+        this.solved = solved;
+    }
+
+    // Returns these counters as lines of text, for showing over the maze
+    ArrayList<String> lines() {
+        ArrayList<String> lines = new ArrayList<String>();
+        lines.add(this.solver + (this.solved ? ": solved" : ": solving"));
+        lines.add("expanded: " + this.nodesExpanded);
+        lines.add("duplicate pushes: " + this.duplicatePushes);
+        lines.add("peak worklist: " + this.peakWorklist);
+        lines.add("path length: " + this.pathLength);
+        return lines;
+    }
+
+    // Returns these counters as one line of key=value pairs, for logs
+    public String toString() {
+        return "solver=" + this.solver
+            + " solved=" + this.solved
+            + " expanded=" + this.nodesExpanded
+            + " duplicatePushes=" + this.duplicatePushes
+            + " peakWorklist=" + this.peakWorklist
+            + " pathLength=" + this.pathLength;
+    }
+}
+
+// How much memory this thread and the heap have used, as the JVM counts it
+class MemoryStats {
+
+    // The JVM's thread counters. Looked up once, since looking them up
+    // allocates and would count against whatever is being measured
+    static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    // How many bytes the current thread has allocated so far, or -1 if the
+    // JVM does not count them
+    static long allocatedBytes() {
+        if (MemoryStats.THREADS instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) MemoryStats.THREADS)
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    // Returns how many bytes were allocated between the given count and
+    // now, or -1 if the JVM does not count them
+    static long allocatedSince(long before) {
+        if (before < 0) {
+            return -1;
+        }
+        return MemoryStats.allocatedBytes() - before;
+    }
+
+    // The most the heap has held since it was last reset, adding up the
+    // peak of each of its pools
+    static long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    // EFFECT: Collects garbage, then starts each heap pool's peak over from
+    // what it holds now
+    static void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+}
+
+class ExamplesMetrics {
+
+    void testGenerationMetrics(Tester t) {
+        Maze m = new Maze(6, 4);
+        m.initMaze();
+        GenerationMetrics g = m.generationMetrics();
+
+        t.checkExpect(g.width, 6);
+        t.checkExpect(g.height, 4);
+        t.checkExpect(g.edgesCreated, m.mazeEdges.size());
+        t.checkExpect(g.edgesAccepted, m.spanningTree.size());
+        t.checkExpect(g.edgesAccepted, 23);
+        // Two finds for every edge considered
+        t.checkExpect(g.findRepCalls, 2L * g.edgesCreated);
+        t.checkExpect(g.findRepSteps >= 0, true);
+        t.checkExpect(g.totalNanos() > 0, true);
+        t.checkExpect(g.totalNanos() >= g.treeNanos, true);
+        t.checkExpect(g.lines().size(), 6);
+        // Making edges makes objects, on JVMs that count them
+        t.checkExpect(g.edgeBytes > 0 || g.edgeBytes == -1, true);
+        t.checkExpect(g.toString().startsWith("maze=6x4 edges=38 "), true);
+
+        // A snapshot keeps what it saw when the maze is made again
+        m.clearFields();
+        m.initMaze();
+        t.checkExpect(g.edgesCreated, 38);
+        t.checkExpect(m.generationMetrics() == m.generationMetrics(), false);
+    }
+
+    void testFindRepCounts(Tester t) {
+        Maze m = new Maze(3, 1);
+        m.randomEdges();
+        m.initReps();
+        Node a = m.mazeNodes.get(0);
+        Node b = m.mazeNodes.get(1);
+        Node c = m.mazeNodes.get(2);
+        m.reps.put(c, b);
+        m.reps.put(b, a);
+
+        GenerationMetrics g = m.generationMetrics();
+        m.findRep(c);
+        m.findRep(a);
+        GenerationMetrics after = m.generationMetrics();
+        t.checkExpect(after.findRepCalls - g.findRepCalls, 2L);
+        // findRep starts from c's parent, b, which is one link from a
+        t.checkExpect(after.findRepSteps - g.findRepSteps, 1L);
+    }
+
+    void testSlowestPhase(Tester t) {
+        GenerationMetrics g = new GenerationMetrics(2, 2);
+        t.checkExpect(g.averageFindRepSteps(), 0.0);
+        g.sortNanos = 5;
+        g.treeNanos = 9;
+        g.filterNanos = 3;
+        t.checkExpect(g.slowestPhase(), "tree");
+        t.checkExpect(g.totalNanos(), 17L);
+        g.findRepCalls = 4;
+        g.findRepSteps = 6;
+        t.checkExpect(g.averageFindRepSteps(), 1.5);
+        t.checkExpect(GenerationMetrics.millis(2500000), "2.50");
+    }
+
+    void testShowScores(Tester t) {
+        MazeWorld m = new MazeWorld(6, 4);
+        t.checkExpect(m.displayScores, false);
+        m.onKeyEvent("x");
+        t.checkExpect(m.displayScores, true);
+        WorldImage panel = m.scoresPanel();
+        t.checkExpect(m.scoresPanel() == panel, true);
+        m.makeScene();
+        // A solver's counters are shown live under the maze's
+        m.onKeyEvent("b");
+        m.onTick();
+        t.checkExpect(m.solverPanel() == m.solverPanel(), false);
+        m.makeScene();
+        m.onKeyEvent("y");
+        t.checkExpect(m.displayScores, false);
+
+        // A new maze has new numbers to show
+        m.onKeyEvent("x");
+        m.onKeyEvent("\n");
+        t.checkExpect(m.scoresPanel == null, true);
+    }
+
+    void testSolverCounters(Tester t) {
+        Maze m = new Maze(12, 8, 3);
+        m.initMaze();
+        Node start = m.mazeNodes.get(0);
+
+        // Each node but the start is pushed once by the node it is reached
+        // from, and once more, already visited, by each node it leads to
+        BFSSolver b = new BFSSolver(start);
+        t.checkExpect(b.metrics().peakWorklist, 1);
+        b.step();
+        SolverMetrics live = b.metrics();
+        t.checkExpect(live.nodesExpanded, 1);
+        t.checkExpect(live.solved, false);
+        t.checkExpect(live.duplicatePushes, 0);
+        // The start is still on the worklist as its neighbors are pushed
+        t.checkExpect(live.peakWorklist, start.nodeEdges.size() + 1);
+
+        b.solve();
+        SolverMetrics done = b.metrics();
+        t.checkExpect(done.solved, true);
+        t.checkExpect(done.nodesExpanded, b.visited.size());
+        t.checkExpect(done.pathLength, b.finishedPath.size());
+        t.checkExpect(done.duplicatePushes > 0, true);
+        t.checkExpect(done.duplicatePushes < done.nodesExpanded, true);
+        t.checkExpect(done.lines().size(), 5);
+        t.checkExpect(
+            done.toString().startsWith("solver=BFSSolver solved=true"), true);
+
+        // Both searches find the only path there is
+        DFSSolver d = new DFSSolver(start);
+        d.solve();
+        t.checkExpect(d.metrics().pathLength, done.pathLength);
+
+        // The fast solvers never push a visited node
+        FastBFSSolver f = new FastBFSSolver(start);
+        f.solve();
+        t.checkExpect(f.metrics().duplicatePushes, 0);
+        t.checkExpect(f.metrics().peakWorklist >= 1, true);
+        t.checkExpect(f.metrics().pathLength, done.pathLength);
+    }
+
+    void testFightCounters(Tester t) {
+        Maze m = new Maze(12, 8, 3);
+        m.initMaze();
+        SolverFight s = new SolverFight(m.mazeNodes.get(0));
+        s.solve();
+        SolverMetrics both = s.metrics();
+        t.checkExpect(both.duplicatePushes, s.duplicatePushes
+            + s.myBFS.duplicatePushes);
+        t.checkExpect(both.peakWorklist >= s.myBFS.peakWorklist, true);
+    }
+
+}
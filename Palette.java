@@ -0,0 +1,190 @@
+import tester.*;
+import java.awt.Color;
+
+// A fixed table of colors that numbers in a range are mapped onto. Every
+// color is made when the palette is, so looking one up allocates nothing.
+class Palette {
+
+    static final int SIZE = 1024; // Number of colors in a palette
+
+    // The original red-yellow-green-cyan-blue-magenta rainbow
+    static final Palette RAINBOW = Palette.rainbow(Palette.SIZE);
+
+    // Dark blue through teal and green to yellow; stays readable with the
+    // common kinds of color blindness (after matplotlib's viridis)
+    static final Palette COLORBLIND_SAFE = Palette.fromStops(
+        "Colorblind-safe", Palette.SIZE, new Color(68, 1, 84),
+        new Color(72, 40, 120), new Color(62, 74, 137),
+        new Color(49, 104, 142), new Color(38, 130, 142),
+        new Color(31, 158, 137), new Color(53, 183, 121),
+        new Color(109, 205, 89), new Color(180, 222, 44),
+        new Color(253, 231, 37));
+
+    String name; // What to call this palette in the menu
+    Color[] colors; // The colors, from the start of the range to the end
+
+    // Constructor
+    Palette(String name, Color[] colors) {
+        if (colors.length < 2) {
+            throw new RuntimeException("A palette needs at least two colors");
+        }
+        this.name = name;
+        this.colors = colors;
+    }
+
+    // Returns the color for the point idx in the range 0 to max
+    Color colorAt(int idx, int max) {
+        if (idx > max || idx < 0 || max < 0) {
+            throw new RuntimeException("Color index out of bounds");
+        }
+        if (max == 0) {
+            return this.colors[this.colors.length - 1];
+        }
+        return this.colors[(int) ((long) idx * (this.colors.length - 1)
+            / max)];
+    }
+
+    // Returns the other built in palette
+    Palette next() {
+        if (this == Palette.RAINBOW) {
+            return Palette.COLORBLIND_SAFE;
+        }
+        return Palette.RAINBOW;
+    }
+
+    // Makes a palette of the given size that blends evenly from each of the
+    // given colors to the next
+    static Palette fromStops(String name, int size, Color... stops) {
+        Color[] colors = new Color[size];
+        for (int i = 0; i < size; i += 1) {
+            double pos = i * (stops.length - 1) / (double) (size - 1);
+            int stop = Math.min((int) pos, stops.length - 2);
+            double frac = pos - stop;
+            Color from = stops[stop];
+            Color to = stops[stop + 1];
+            colors[i] = new Color(
+                Palette.blend(from.getRed(), to.getRed(), frac),
+                Palette.blend(from.getGreen(), to.getGreen(), frac),
+                Palette.blend(from.getBlue(), to.getBlue(), frac));
+        }
+        return new Palette(name, colors);
+    }
+
+    // Returns the color channel value frac of the way from one value to
+    // another
+    static int blend(int from, int to, double frac) {
+        return (int) Math.round(from * (1 - frac) + to * frac);
+    }
+
+    // Makes the rainbow palette with the given number of colors
+    static Palette rainbow(int size) {
+        Color[] colors = new Color[size];
+        for (int i = 0; i < size; i += 1) {
+            colors[i] = Palette.rainbowColor(i / (double) (size - 1));
+        }
+        return new Palette("Rainbow", colors);
+    }
+
+    // Given a point between 0 and 1, return the color at that relative point
+    // in the rainbow.
+    static Color rainbowColor(double colorIdx) {
+
+        if (colorIdx < 0.333) {
+            // R constant
+            // B hi to low first half, G low to hi second half
+            if (colorIdx < 0.167) {
+                return new Color(255, 0, 255 - (int) (255 * colorIdx / 0.167));
+            }
+            else {
+                return new Color(255, (int) (255 * (colorIdx - 0.167) / 0.167),
+                    0);
+            }
+        }
+        else if (colorIdx < 0.667) {
+            // G constant
+            // R hi to low first half, B low to hi second half
+            if (colorIdx < 0.5) {
+                return new Color(255 - (int) (255 * (colorIdx - 0.333) / 0.167),
+                    255, 0);
+            }
+            else {
+                return new Color(0, 255,
+                    (int) (255 * (colorIdx - 0.5) / 0.167));
+            }
+        }
+        else {
+            // B constant
+            // G hi to low first half, R low to hi second half
+            if (colorIdx < 0.833) {
+                return new Color(0,
+                    255 - ((int) (255 * (colorIdx - 0.667) / 0.167)), 255);
+            }
+            else {
+                return new Color(
+                    Math.min(255, (int) (255 * (colorIdx - 0.833) / 0.167)), 0,
+                    255);
+            }
+        }
+    }
+}
+
+class ExamplesPalette {
+
+    void testColorAt(Tester t) {
+        Palette p = Palette.RAINBOW;
+
+        t.checkExpect(p.colors.length, Palette.SIZE);
+        t.checkExpect(p.colorAt(0, 100), new Color(255, 0, 255));
+        t.checkExpect(p.colorAt(100, 100), p.colors[Palette.SIZE - 1]);
+        t.checkExpect(p.colorAt(50, 100), p.colors[511]);
+        // The same spot in the range always gives back the very same color
+        t.checkExpect(p.colorAt(3, 7) == p.colorAt(6, 14), true);
+        // An empty range only has its end
+        t.checkExpect(p.colorAt(0, 0), p.colors[Palette.SIZE - 1]);
+
+        t.checkException(new RuntimeException("Color index out of bounds"),
+            p, "colorAt", 8, 7);
+        t.checkException(new RuntimeException("Color index out of bounds"),
+            p, "colorAt", -1, 7);
+    }
+
+    void testMatchesOldRainbow(Tester t) {
+        // Each color is the one the rainbow formula gives for its spot
+        for (int i = 0; i < Palette.SIZE; i += 97) {
+            t.checkExpect(Palette.RAINBOW.colors[i],
+                Palette.rainbowColor(i / (double) (Palette.SIZE - 1)));
+        }
+    }
+
+    void testFromStops(Tester t) {
+        Palette p = Palette.fromStops("Gray", 5, Color.black, Color.white);
+
+        t.checkExpect(p.colors[0], Color.black);
+        t.checkExpect(p.colors[2], new Color(128, 128, 128));
+        t.checkExpect(p.colors[4], Color.white);
+        t.checkExpect(p.name, "Gray");
+
+        Palette safe = Palette.COLORBLIND_SAFE;
+        t.checkExpect(safe.colors[0], new Color(68, 1, 84));
+        t.checkExpect(safe.colors[Palette.SIZE - 1], new Color(253, 231, 37));
+        t.checkExpect(safe.next(), Palette.RAINBOW);
+        t.checkExpect(Palette.RAINBOW.next(), safe);
+
+        t.checkConstructorException(
+            new RuntimeException("A palette needs at least two colors"),
+            "Palette", "Empty", new Color[0]);
+    }
+
+    void testSolverUsesPalette(Tester t) {
+        Maze m = new Maze(4, 3);
+        m.initMaze();
+        ColorMazeFromStart c = new ColorMazeFromStart(m.mazeNodes.get(0),
+            m.distancesFromStart());
+        c.step();
+
+        t.checkExpect(c.rainbowColor(0, 10), Palette.RAINBOW.colorAt(0, 10));
+        c.usePalette(Palette.COLORBLIND_SAFE);
+        t.checkExpect(c.needsRepaint, true);
+        t.checkExpect(c.rainbowColor(0, 10), new Color(68, 1, 84));
+    }
+}
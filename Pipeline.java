@@ -0,0 +1,591 @@
+import tester.*;
+import java.awt.Color;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+// The cells a solver changed over a few steps, handed from the thread
+// running the solver to the thread drawing it
+class ChangeBatch extends CellLog {
+
+    boolean repaint; // Is this everything the solver has drawn, from scratch?
+    int steps; // How many steps the solver took to make these changes
+    SolverMetrics metrics; // The solver's counters once it made them
+
+    // Constructor
+    ChangeBatch(boolean repaint) {
+        this.repaint = repaint;
+        this.steps = 0;
+    }
+}
+
+// A bounded queue of change batches for exactly one thread putting batches
+// in and one thread taking them out. Neither side ever locks or waits: a
+// full queue refuses a batch and an empty one has none to give.
+class ChangeRing {
+
+    ChangeBatch[] slots; // The batches, in a circle
+    int mask; // slots.length - 1, for wrapping positions onto slots
+    AtomicLong head; // How many batches have been taken out
+    AtomicLong tail; // How many batches have been put in
+
+    // Constructor for a queue that holds the given number of batches,
+    // rounded up to a power of two
+    ChangeRing(int capacity) {
+        if (capacity < 1) {
+            throw new RuntimeException("A ring needs room for a batch");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size *= 2;
+        }
+        this.slots = new ChangeBatch[size];
+        this.mask = size - 1;
+        this.head = new AtomicLong();
+        this.tail = new AtomicLong();
+    }
+
+    // Puts the given batch at the back of this queue, unless it is full.
+    // Returns whether it fit. Only the putting thread may call this.
+    // EFFECT: May add the batch
+    boolean offer(ChangeBatch b) {
+        long t = this.tail.get();
+        if (t - this.head.get() == this.slots.length) {
+            return false;
+        }
+        this.slots[(int) (t & this.mask)] = b;
+        // Publishing the new tail makes the slot visible to the other thread
+        this.tail.lazySet(t + 1);
+        return true;
+    }
+
+    // Takes the batch at the front of this queue, or returns null if it is
+    // empty. Only the taking thread may call this.
+    // EFFECT: May remove the batch
+    ChangeBatch poll() {
+        long h = this.head.get();
+        if (h == this.tail.get()) {
+            return null;
+        }
+        int slot = (int) (h & this.mask);
+        ChangeBatch b = this.slots[slot];
+        this.slots[slot] = null;
+        this.head.lazySet(h + 1);
+        return b;
+    }
+
+    // How many batches are waiting
+    int size() {
+        return (int) (this.tail.get() - this.head.get());
+    }
+}
+
+// Runs a solver on its own thread, sending what it changes every few steps
+// through a ChangeRing to whoever draws it. The solver goes as fast as it
+// can until the ring fills up, and the drawing thread takes whatever is
+// there each frame, so neither has to keep pace with the other. Once the
+// pipeline has started, only its thread may touch the solver: the drawing
+// thread asks for a new palette through usePalette, and reads the solver's
+// counters from the batches (see metrics). If the solver throws, its thread
+// still finishes, and the drawing thread finds out through checkFailure.
+class SolverPipeline {
+
+    static final int STEPS_PER_BATCH = 8; // Steps between batches by default
+    static final int CAPACITY = 64; // Batches waiting by default
+    static final long MIN_WAIT_NANOS = 10000; // First wait for a full ring
+    static final long MAX_WAIT_NANOS = 2000000; // Longest wait for a full ring
+
+    ASolver solver; // The solver being run
+    ChangeRing ring; // The batches not drawn yet
+    int stepsPerBatch; // How many steps go in each batch
+    Thread worker; // The thread running the solver
+
+    volatile boolean stopped; // Has the solver been told to stop?
+    volatile boolean done; // Has the solver's thread finished?
+    AtomicLong steps; // How many steps the solver has taken
+    long startNanos; // When the solver started
+    volatile long endNanos; // When the solver's thread finished
+    volatile RuntimeException failure; // What the solver threw, if anything
+
+    long frames; // How many frames have drained this pipeline
+    long firstFrameNanos; // When the first of them did
+    double stepRate; // Steps a second as of the last frame
+    double frameRate; // Frames a second as of the last frame
+
+    // A palette the drawing thread wants the solver to use, until the
+    // solver's thread picks it up
+    AtomicReference<Palette> paletteRequest;
+    SolverMetrics metrics; // The counters in the last batch drained
+
+    // Constructor for the default batch size and capacity
+    SolverPipeline(ASolver solver) {
+        this(solver, SolverPipeline.STEPS_PER_BATCH, SolverPipeline.CAPACITY);
+    }
+
+    // Constructor
+    SolverPipeline(ASolver solver, int stepsPerBatch, int capacity) {
+        if (stepsPerBatch < 1) {
+            throw new RuntimeException("A batch needs at least one step");
+        }
+        this.solver = solver;
+        this.ring = new ChangeRing(capacity);
+        this.stepsPerBatch = stepsPerBatch;
+        this.stopped = false;
+        this.done = false;
+        this.steps = new AtomicLong();
+        this.frames = 0;
+        this.paletteRequest = new AtomicReference<Palette>();
+        // Nothing else touches the solver until the pipeline starts
+        this.metrics = solver.metrics();
+    }
+
+    // EFFECT: Starts the solver's thread
+    void start() {
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, "solver");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    // EFFECT: Sends everything the solver has drawn, then steps it until it
+    // cannot step any more or is stopped, sending a batch of changes every
+    // stepsPerBatch steps. Marks this pipeline done however that ends, and
+    // keeps anything the solver threw in failure.
+    void run() {
+        try {
+            this.sendAll();
+        }
+        catch (RuntimeException e) {
+            this.failure = e;
+        }
+        finally {
+            this.endNanos = System.nanoTime();
+            this.done = true;
+        }
+    }
+
+    // EFFECT: Does the work of run
+    void sendAll() {
+        ChangeBatch first = new ChangeBatch(true);
+        this.solver.renderOnto(first);
+        first.metrics = this.solver.metrics();
+        this.publish(first);
+
+        while (!this.stopped && this.solver.canStep()) {
+            Palette p = this.paletteRequest.getAndSet(null);
+            if (p != null) {
+                // Marks the solver for a repaint, so this batch is one
+                this.solver.usePalette(p);
+            }
+
+            SolveEvent event = new SolveEvent();
+            event.begin();
+            int n = 0;
+            while (n < this.stepsPerBatch && this.solver.canStep()) {
+                this.solver.step();
+                n += 1;
+            }
+            event.finish(this.solver, n);
+            this.steps.addAndGet(n);
+
+            ChangeBatch b;
+            if (this.solver.needsRepaint) {
+                b = new ChangeBatch(true);
+                this.solver.renderOnto(b);
+            }
+            else {
+                b = new ChangeBatch(false);
+                this.solver.flushChanges(b);
+            }
+            b.steps = n;
+            b.metrics = this.solver.metrics();
+            this.publish(b);
+        }
+    }
+
+    // EFFECT: Puts the given batch into the ring, waiting for the drawing
+    // thread to make room if it is full, unless this pipeline is stopped.
+    // The solver outruns the drawing, so a full ring is the usual case: the
+    // thread sleeps, twice as long each time it still finds no room, until
+    // drain or stop wakes it.
+    void publish(ChangeBatch b) {
+        long wait = SolverPipeline.MIN_WAIT_NANOS;
+        while (!this.ring.offer(b)) {
+            if (this.stopped) {
+                return;
+            }
+            LockSupport.parkNanos(this, wait);
+            wait = Math.min(wait * 2, SolverPipeline.MAX_WAIT_NANOS);
+        }
+    }
+
+    // EFFECT: Asks the solver's thread to color the solver with the given
+    // palette from its next batch on. Only the drawing thread may call this.
+    void usePalette(Palette p) {
+        this.paletteRequest.set(p);
+    }
+
+    // Returns every batch sent since the last frame, oldest first. Only the
+    // drawing thread may call this, once a frame.
+    // EFFECT: Takes them out of the ring, counts a frame, keeps the
+    // counters of the newest batch in metrics, and updates both rates
+    ArrayList<ChangeBatch> drain() {
+        if (this.frames == 0) {
+            this.firstFrameNanos = System.nanoTime();
+        }
+        this.frames += 1;
+        this.stepRate = this.stepsPerSecond();
+        this.frameRate = this.framesPerSecond();
+
+        ArrayList<ChangeBatch> batches = new ArrayList<ChangeBatch>();
+        ChangeBatch b = this.ring.poll();
+        while (b != null) {
+            batches.add(b);
+            this.metrics = b.metrics;
+            b = this.ring.poll();
+        }
+        // There is room now, if the solver's thread was waiting for it
+        if (!batches.isEmpty()) {
+            LockSupport.unpark(this.worker);
+        }
+        return batches;
+    }
+
+    // Has the solver finished, and has every batch it sent been drained?
+    boolean finished() {
+        return this.done && this.ring.size() == 0;
+    }
+
+    // EFFECT: Throws an exception if the solver failed on its own thread
+    void checkFailure() {
+        if (this.failure != null) {
+            throw new RuntimeException("The solver failed on its own thread",
+                this.failure);
+        }
+    }
+
+    // EFFECT: Tells the solver's thread to stop, and waits until it has
+    void stop() {
+        this.stopped = true;
+        LockSupport.unpark(this.worker);
+        try {
+            this.worker.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while stopping a solver");
+        }
+    }
+
+    // How many steps a second the solver has taken so far
+    double stepsPerSecond() {
+        long end = System.nanoTime();
+        if (this.done) {
+            end = this.endNanos;
+        }
+        return this.steps.get() * 1e9 / Math.max(1, end - this.startNanos);
+    }
+
+    // How many frames a second have drained this pipeline so far
+    double framesPerSecond() {
+        if (this.frames < 2) {
+            return 0;
+        }
+        return (this.frames - 1) * 1e9
+            / Math.max(1, System.nanoTime() - this.firstFrameNanos);
+    }
+
+    // Returns the solver's counters as its thread last sent them, then how
+    // fast it is stepping and how fast its changes are being drawn, as of
+    // the last frame
+    ArrayList<String> lines() {
+        ArrayList<String> lines = this.metrics.lines();
+        lines.add("steps/s: " + String.format("%.0f", this.stepRate));
+        lines.add("frames/s: " + String.format("%.1f", this.frameRate));
+        return lines;
+    }
+}
+
+class ExamplesPipeline {
+
+    Maze m;
+
+    void init() {
+        m = new Maze(20, 12);
+        m.initMaze();
+    }
+
+    // Returns a window on a maze with more cells than a pipeline's batches
+    // can hold, so a breadth-first solver is still running after the first
+    // frame. (The fast solvers can finish in fewer steps than that.)
+    MazeWorld threadedWorld() {
+        MazeWorld w = new MazeWorld(60, 40);
+        w.threaded = true;
+        return w;
+    }
+
+    void testChangeRing(Tester t) {
+        ChangeRing r = new ChangeRing(3);
+        ChangeBatch a = new ChangeBatch(false);
+        ChangeBatch b = new ChangeBatch(true);
+
+        t.checkExpect(r.slots.length, 4);
+        t.checkExpect(r.poll(), null);
+        t.checkExpect(r.offer(a), true);
+        t.checkExpect(r.offer(b), true);
+        t.checkExpect(r.size(), 2);
+        t.checkExpect(r.poll() == a, true);
+        t.checkExpect(r.poll() == b, true);
+        t.checkExpect(r.poll(), null);
+
+        // A full ring turns batches away, and wraps once there is room
+        for (int i = 0; i < 4; i += 1) {
+            t.checkExpect(r.offer(a), true);
+        }
+        t.checkExpect(r.offer(b), false);
+        r.poll();
+        t.checkExpect(r.offer(b), true);
+        t.checkExpect(r.size(), 4);
+
+        t.checkConstructorException(
+            new RuntimeException("A ring needs room for a batch"),
+            "ChangeRing", 0);
+    }
+
+    void testPipelineSolves(Tester t) {
+        this.init();
+        BFSSolver b = new BFSSolver(m.mazeNodes.get(0));
+        SolverPipeline p = new SolverPipeline(b, 3, 2);
+        CellLog drawn = new CellLog();
+        long stepped = 0;
+        ArrayList<Boolean> repaints = new ArrayList<Boolean>();
+
+        p.start();
+        // A slow drawer: the solver has to wait for room in the small ring
+        while (!p.finished()) {
+            for (ChangeBatch batch : p.drain()) {
+                repaints.add(batch.repaint);
+                batch.replayOnto(drawn);
+                stepped += batch.steps;
+            }
+            Thread.yield();
+        }
+
+        t.checkExpect(b.solved, true);
+        // The first batch is everything drawn before the solver started
+        t.checkExpect(repaints.get(0), true);
+        t.checkExpect(repaints.get(1), false);
+        t.checkExpect(stepped, p.steps.get());
+        t.checkExpect(p.stepsPerSecond() > 0, true);
+        // Every visited cell, and the path, made it through
+        t.checkExpect(drawn.nodes.containsAll(b.visited), true);
+        t.checkExpect(drawn.colors.get(drawn.colors.size() - 1), Color.blue);
+    }
+
+    void testPipelineStops(Tester t) {
+        this.init();
+        DFSSolver d = new DFSSolver(m.mazeNodes.get(0));
+        SolverPipeline p = new SolverPipeline(d, 1, 1);
+
+        p.start();
+        // Nobody drains, so the solver is stuck waiting for room
+        p.stop();
+        t.checkExpect(p.done, true);
+        t.checkExpect(p.ring.size(), 1);
+        t.checkExpect(d.solved, false);
+
+        t.checkConstructorException(
+            new RuntimeException("A batch needs at least one step"),
+            "SolverPipeline", d, 0, 4);
+    }
+
+    void testPipelineWaitsIdle(Tester t) {
+        this.init();
+        SolverPipeline p = new SolverPipeline(
+            new DFSSolver(m.mazeNodes.get(0)), 1, 1);
+        p.start();
+        // Nobody drains for a while, so the solver's thread waits for room
+        try {
+            Thread.sleep(300);
+        }
+        catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        // Waiting costs next to no time on a core, where spinning would
+        // have used all of it
+        if (MemoryStats.THREADS.isThreadCpuTimeSupported()) {
+            long cpu = MemoryStats.THREADS.getThreadCpuTime(p.worker.getId());
+            t.checkExpect(cpu < 100000000L, true);
+        }
+
+        // Draining wakes it to send the next batch, and stop still ends it
+        t.checkExpect(p.drain().size(), 1);
+        long before = System.nanoTime();
+        while (p.ring.size() == 0) {
+            Thread.yield();
+        }
+        t.checkExpect(System.nanoTime() - before < 100000000L, true);
+        p.stop();
+        t.checkExpect(p.done, true);
+    }
+
+    void testThreadedMaze(Tester t) {
+        MazeWorld w = this.threadedWorld();
+        w.onKeyEvent("b");
+        w.makeScene();
+        SolverPipeline p = w.pipeline;
+        t.checkExpect(p == null, false);
+        t.checkExpect(p.solver, w.solver);
+
+        // Ticks leave the solver alone; it steps on its own thread
+        w.onTick();
+        while (!p.finished()) {
+            w.makeScene();
+            Thread.yield();
+        }
+        w.makeScene();
+        t.checkExpect(w.solver.solved, true);
+        t.checkExpect(w.cellLayer.layer.image.getPixel(1, 1), Color.blue);
+        t.checkExpect(p.frames > 0, true);
+        // Once everything is drawn the pipeline is let go
+        t.checkExpect(w.pipeline, null);
+        t.checkExpect(p.stopped, true);
+
+        // So a new palette afterwards is drawn the unthreaded way
+        CellCanvas before = w.cellLayer;
+        w.onKeyEvent("v");
+        w.makeScene();
+        t.checkExpect(w.cellLayer == before, false);
+        t.checkExpect(w.solver.palette, w.palette);
+    }
+
+    void testPipelineRates(Tester t) {
+        this.init();
+        SolverPipeline p = new SolverPipeline(
+            new DFSSolver(m.mazeNodes.get(0)));
+        t.checkExpect(p.framesPerSecond(), 0.0);
+        p.drain();
+        // One frame is not a rate yet
+        t.checkExpect(p.framesPerSecond(), 0.0);
+        t.checkExpect(p.frameRate, 0.0);
+        p.drain();
+        t.checkExpect(p.framesPerSecond() > 0, true);
+        t.checkExpect(p.frameRate > 0, true);
+
+        ArrayList<String> lines = p.lines();
+        t.checkExpect(lines.get(lines.size() - 2).startsWith("steps/s: "),
+            true);
+        t.checkExpect(lines.get(lines.size() - 1).startsWith("frames/s: "),
+            true);
+    }
+
+    // Returns the start of a graph whose only edge does not touch it, so a
+    // solver started there throws on its first step
+    Node brokenGraph() {
+        Node start = new Node(0, 0);
+        Edge e = new Edge(1);
+        e.setN1(new Node(1, 0));
+        e.setN2(new EndNode(2, 0));
+        start.addEdge(e);
+        return start;
+    }
+
+    void testPipelineFails(Tester t) {
+        SolverPipeline p = new SolverPipeline(
+            new BFSSolver(this.brokenGraph()));
+        p.start();
+        while (!p.finished()) {
+            p.drain();
+            Thread.yield();
+        }
+        // The thread finished even though the solver threw
+        t.checkExpect(p.done, true);
+        t.checkExpect(p.failure.getMessage(),
+            "Given edge is not connected to this node");
+        t.checkException(
+            new RuntimeException("The solver failed on its own thread"), p,
+            "checkFailure");
+        p.stop();
+    }
+
+    void testThreadedFailure(Tester t) {
+        MazeWorld w = this.threadedWorld();
+        w.solver = new BFSSolver(this.brokenGraph());
+        w.mazeStarted = true;
+        String message = "";
+        try {
+            while (true) {
+                w.makeScene();
+                Thread.yield();
+            }
+        }
+        catch (RuntimeException e) {
+            message = e.getMessage();
+        }
+        t.checkExpect(message, "The solver failed on its own thread");
+        // The dead pipeline is let go, so the solver is back on this thread
+        t.checkExpect(w.pipeline, null);
+    }
+
+    void testPipelinePalette(Tester t) {
+        this.init();
+        DFSSolver d = new DFSSolver(m.mazeNodes.get(0));
+        SolverPipeline p = new SolverPipeline(d, 1, 1);
+        t.checkExpect(p.metrics.nodesExpanded, 0);
+
+        // The request waits for the solver's thread to pick it up
+        p.usePalette(Palette.COLORBLIND_SAFE);
+        t.checkExpect(d.palette, Palette.RAINBOW);
+        p.start();
+        boolean repainted = false;
+        while (!p.finished()) {
+            for (ChangeBatch batch : p.drain()) {
+                repainted = repainted || (batch.repaint && batch.steps > 0);
+            }
+            Thread.yield();
+        }
+        p.stop();
+        t.checkExpect(repainted, true);
+        t.checkExpect(d.palette, Palette.COLORBLIND_SAFE);
+        t.checkExpect(p.paletteRequest.get(), null);
+        // The counters drained last are the solver's final ones
+        t.checkExpect(p.metrics.solved, true);
+        t.checkExpect(p.metrics.nodesExpanded, d.nodesExpanded());
+    }
+
+    void testThreadedPalette(Tester t) {
+        MazeWorld w = this.threadedWorld();
+        w.onKeyEvent("b");
+        w.makeScene();
+        SolverPipeline p = w.pipeline;
+
+        // While the solver runs, the key asks its thread for the palette
+        w.onKeyEvent("v");
+        t.checkExpect(p.paletteRequest.get() == null
+            || p.paletteRequest.get() == w.palette, true);
+        while (w.pipeline != null) {
+            w.makeScene();
+            Thread.yield();
+        }
+        // Whether or not the thread got to it, the solver ends up with it
+        t.checkExpect(w.solver.palette, w.palette);
+    }
+
+    void testThreadedPanel(Tester t) {
+        MazeWorld w = this.threadedWorld();
+        w.onKeyEvent("b");
+        w.displayScores = true;
+        w.makeScene();
+        SolverPipeline p = w.pipeline;
+        // The panel is made from counters the solver's thread sent, and
+        // shows how fast it steps and how fast its changes are drawn
+        t.checkExpect(w.solverPanel(), MazeWorld.panel(p.lines()));
+        t.checkExpect(p.lines().size(), p.metrics.lines().size() + 2);
+        while (w.pipeline != null) {
+            w.makeScene();
+            Thread.yield();
+        }
+        t.checkExpect(w.solverPanel(),
+            MazeWorld.panel(w.solver.metrics().lines()));
+    }
+}
@@ -0,0 +1,214 @@
+import tester.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// The outcome of one solver's run in a SolverRace
+class RaceResult {
+
+    ASolver solver; // The solver that ran
+    String name; // The kind of solver, for reporting
+    boolean solved; // Did this solver reach the end?
+    boolean cancelled; // Was this solver stopped because another one won?
+    long nanos; // Wall time spent stepping, in nanoseconds
+    int nodesExpanded; // How many nodes the solver visited
+
+    // Constructor
+    RaceResult(ASolver solver) {
+        this.solver = solver;
+        this.name = solver.getClass().getSimpleName();
+        this.solved = false;
+        this.cancelled = false;
+        this.nanos = 0;
+        this.nodesExpanded = 0;
+    }
+
+    // EFFECT: Records how the solver finished after running for the given
+    // number of nanoseconds
+    void record(long nanos, boolean cancelled) {
+        this.nanos = nanos;
+        this.solved = this.solver.solved;
+        this.cancelled = cancelled;
+        this.nodesExpanded = this.solver.nodesExpanded();
+    }
+
+    // A one-line summary of this result
+    public String toString() {
+        String outcome;
+        if (this.solved) {
+            outcome = "solved";
+        }
+        else if (this.cancelled) {
+            outcome = "cancelled";
+        }
+        else {
+            outcome = "gave up";
+        }
+        return this.name + ": " + outcome + " in " + (this.nanos / 1000)
+            + "us, " + this.nodesExpanded + " nodes expanded";
+    }
+}
+
+// Races any number of solvers against each other, each on its own thread,
+// over the same maze. The first solver to reach the end wins and the rest
+// are cancelled. The maze is only read while racing, so every solver must
+// have been made from the same (already generated) maze.
+class SolverRace {
+
+    ArrayList<ASolver> racers; // The solvers in the race
+    ArrayList<RaceResult> results; // One result per racer, in the same order
+    AtomicReference<RaceResult> winner; // The first solver to finish
+
+    // Constructor
+    SolverRace(ArrayList<ASolver> racers) {
+        if (racers.isEmpty()) {
+            throw new RuntimeException("A race needs at least one solver");
+        }
+        this.racers = racers;
+        this.results = new ArrayList<RaceResult>();
+        for (ASolver s : racers) {
+            this.results.add(new RaceResult(s));
+        }
+        this.winner = new AtomicReference<RaceResult>();
+    }
+
+    // Runs every racer on its own thread until one of them solves the maze,
+    // then cancels the others. Returns the winning result, or null if no
+    // solver could reach the end.
+    // EFFECT: Steps every racer and fills in this.results
+    RaceResult run() {
+        ExecutorService pool = Executors
+            .newFixedThreadPool(this.racers.size());
+        CountDownLatch startGun = new CountDownLatch(1);
+        ArrayList<Future<?>> running = new ArrayList<Future<?>>();
+
+        for (RaceResult r : this.results) {
+            running.add(pool.submit(() -> {
+                this.race(r, startGun);
+                return null;
+            }));
+        }
+        startGun.countDown();
+
+        try {
+            for (Future<?> f : running) {
+                f.get();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while racing solvers");
+        }
+        catch (ExecutionException e) {
+            throw new RuntimeException("A solver failed during the race",
+                e.getCause());
+        }
+        finally {
+            pool.shutdownNow();
+        }
+
+        return this.winner.get();
+    }
+
+    // Steps the given result's solver until it is solved, stuck, or some
+    // other solver has already won.
+    // EFFECT: Records the outcome in r, may claim this race's winner
+    void race(RaceResult r, CountDownLatch startGun)
+        throws InterruptedException {
+        ASolver s = r.solver;
+
+        startGun.await();
+        long start = System.nanoTime();
+
+        while (s.canStep() && this.winner.get() == null) {
+            s.step();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        r.record(elapsed, !s.solved && this.winner.get() != null);
+
+        if (s.solved) {
+            this.winner.compareAndSet(null, r);
+        }
+    }
+
+    // Returns the solver that won this race, or null if no solver won
+    ASolver winningSolver() {
+        RaceResult r = this.winner.get();
+        if (r == null) {
+            return null;
+        }
+        return r.solver;
+    }
+}
+
+class ExamplesRace {
+
+    Maze m;
+
+    void init() {
+        m = new Maze(20, 12);
+        m.initMaze();
+    }
+
+    void testRaceHasAWinner(Tester t) {
+        this.init();
+        ArrayList<ASolver> racers = new ArrayList<ASolver>(Arrays.asList(
+            new DFSSolver(m.mazeNodes.get(0)),
+            new BFSSolver(m.mazeNodes.get(0)),
+            new FastBFSSolver(m.mazeNodes.get(0))));
+        SolverRace race = new SolverRace(racers);
+
+        RaceResult winner = race.run();
+
+        t.checkExpect(winner == null, false);
+        t.checkExpect(winner.solved, true);
+        t.checkExpect(winner.cancelled, false);
+        t.checkExpect(winner.nodesExpanded > 0, true);
+        t.checkExpect(race.winningSolver().getFinishedPath().get(0),
+            m.endNode);
+        t.checkExpect(race.results.size(), 3);
+        // Everyone either finished or was stopped by the winner
+        for (RaceResult r : race.results) {
+            t.checkExpect(r.solved || r.cancelled, true);
+        }
+    }
+
+    void testRaceWithoutWinner(Tester t) {
+        this.init();
+        // A player never moves on its own, so nobody can win
+        ArrayList<ASolver> racers = new ArrayList<ASolver>(
+            Arrays.asList(new Player(m.mazeNodes.get(0))));
+        SolverRace race = new SolverRace(racers);
+
+        t.checkExpect(race.run(), null);
+        t.checkExpect(race.winningSolver(), null);
+        t.checkExpect(race.results.get(0).solved, false);
+        t.checkExpect(race.results.get(0).cancelled, false);
+    }
+
+    void testEmptyRace(Tester t) {
+        t.checkConstructorException(
+            new RuntimeException("A race needs at least one solver"),
+            "SolverRace", new ArrayList<ASolver>());
+    }
+
+    void testCanStep(Tester t) {
+        this.init();
+        DFSSolver d = new DFSSolver(m.mazeNodes.get(0));
+        t.checkExpect(d.canStep(), true);
+        while (!d.solved) {
+            d.step();
+        }
+        t.checkExpect(d.canStep(), false);
+
+        FastBFSSolver f = new FastBFSSolver(m.mazeNodes.get(0));
+        t.checkExpect(f.canStep(), true);
+        while (!f.solved) {
+            f.step();
+        }
+        t.checkExpect(f.canStep(), false);
+
+        t.checkExpect(new Player(m.mazeNodes.get(0)).canStep(), false);
+    }
+}
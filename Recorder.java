@@ -0,0 +1,258 @@
+import tester.*;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.util.*;
+import javax.imageio.*;
+import javax.imageio.metadata.*;
+import javax.imageio.stream.*;
+
+// Records a solver solving a maze as an animated GIF, written to disk frame
+// by frame as the solver steps. Only the first frame is the whole maze; every
+// later frame is just the rectangle around the cells the solver changed
+// since the frame before, placed over it. Only the current picture of the
+// maze is kept in memory, however many frames there are.
+class GifRecorder {
+
+    HeadlessRenderer renderer; // Draws the maze, and says how big
+    PixelBuffer frame; // What the animation shows so far
+    int frames; // How many frames have been written
+
+    // Constructor for recording the given maze fitted to the given size
+    GifRecorder(Maze maze, int width, int height) {
+        this.renderer = new HeadlessRenderer(maze, width, height);
+        if (this.renderer.view.tileSize > 1) {
+            throw new RuntimeException("Cells are too small to record");
+        }
+        this.frames = 0;
+    }
+
+    // Steps the given solver until it cannot step any more, writing a frame
+    // every stepsPerFrame steps and showing each frame for the given number
+    // of hundredths of a second. Returns how many frames were written.
+    // EFFECT: Steps the solver, and writes the animation to the given file
+    int record(ASolver solver, int stepsPerFrame, int delay, File file) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+            writer.setOutput(out);
+            writer.prepareWriteSequence(null);
+            this.frames = 0;
+            this.redraw(writer, solver, delay);
+
+            while (solver.canStep()) {
+                for (int i = 0; i < stepsPerFrame && solver.canStep(); i += 1) {
+                    solver.step();
+                }
+
+                if (solver.needsRepaint) {
+                    this.redraw(writer, solver, delay);
+                }
+                else {
+                    CellLog changes = new CellLog();
+                    solver.flushChanges(changes);
+                    if (!changes.nodes.isEmpty()) {
+                        this.writeChanges(writer, changes, delay);
+                    }
+                }
+            }
+
+            writer.endWriteSequence();
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Could not write " + file, e);
+        }
+        finally {
+            writer.dispose();
+        }
+        return this.frames;
+    }
+
+    // EFFECT: Draws the whole maze as the solver has colored it and writes
+    // it as one frame, then has the solver keep track of what it changes
+    // from here on
+    void redraw(ImageWriter writer, ASolver solver, int delay)
+        throws IOException {
+        this.frame = this.renderer.render(solver);
+        solver.renderOnto(new CellLog());
+        this.writeFrame(writer, 0, 0, this.frame.width, this.frame.height,
+            delay);
+    }
+
+    // EFFECT: Draws the given changed cells onto the current picture and
+    // writes the rectangle around them as one frame
+    void writeChanges(ImageWriter writer, CellLog changes, int delay)
+        throws IOException {
+        int size = this.renderer.view.cellSize;
+        Maze maze = this.renderer.maze;
+        RasterBand all = new RasterBand(this.frame, 0, this.frame.height);
+        int left = Integer.MAX_VALUE;
+        int top = Integer.MAX_VALUE;
+        int right = 0;
+        int bottom = 0;
+
+        for (int i = 0; i < changes.nodes.size(); i += 1) {
+            Node n = changes.nodes.get(i);
+            all.fillRect(n.x * size, n.y * size, size, size,
+                changes.colors.get(i));
+            left = Math.min(left, n.x * size);
+            top = Math.min(top, n.y * size);
+            right = Math.max(right, (n.x + 1) * size);
+            bottom = Math.max(bottom, (n.y + 1) * size);
+        }
+
+        // Put back the walls and outline the cells were drawn over: each
+        // cell's own, and the ones its left and upper neighbors own
+        for (Node n : changes.nodes) {
+            if (this.renderer.view.showsWalls()) {
+                maze.nodeAt(n.x, n.y).renderWallsOnto(all,
+                    this.renderer.view);
+                if (n.x > 0) {
+                    maze.nodeAt(n.x - 1, n.y).renderWallsOnto(all,
+                        this.renderer.view);
+                }
+                if (n.y > 0) {
+                    maze.nodeAt(n.x, n.y - 1).renderWallsOnto(all,
+                        this.renderer.view);
+                }
+            }
+        }
+        this.renderer.drawOutline(all);
+
+        this.writeFrame(writer, left, top, right - left, bottom - top, delay);
+    }
+
+    // EFFECT: Writes the given rectangle of the current picture as the next
+    // frame, placed where it is in the picture and left on screen under the
+    // frames after it
+    void writeFrame(ImageWriter writer, int x, int y, int w, int h,
+        int delay) throws IOException {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        img.setRGB(0, 0, w, h, this.frame.pixels, y * this.frame.width + x,
+            this.frame.width);
+
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        IIOMetadata meta = writer.getDefaultImageMetadata(
+            ImageTypeSpecifier.createFromRenderedImage(img), param);
+        String format = meta.getNativeMetadataFormatName();
+        IIOMetadataNode root = (IIOMetadataNode) meta.getAsTree(format);
+
+        IIOMetadataNode control = GifRecorder.child(root,
+            "GraphicControlExtension");
+        control.setAttribute("disposalMethod", "doNotDispose");
+        control.setAttribute("userInputFlag", "FALSE");
+        control.setAttribute("transparentColorFlag", "FALSE");
+        control.setAttribute("transparentColorIndex", "0");
+        control.setAttribute("delayTime", Integer.toString(delay));
+
+        IIOMetadataNode place = GifRecorder.child(root, "ImageDescriptor");
+        place.setAttribute("imageLeftPosition", Integer.toString(x));
+        place.setAttribute("imageTopPosition", Integer.toString(y));
+        place.setAttribute("imageWidth", Integer.toString(w));
+        place.setAttribute("imageHeight", Integer.toString(h));
+        place.setAttribute("interlaceFlag", "FALSE");
+
+        meta.setFromTree(format, root);
+        writer.writeToSequence(new IIOImage(img, null, meta), param);
+        this.frames += 1;
+    }
+
+    // Returns the child of the given metadata node with the given name
+    // EFFECT: Adds an empty one if it has none
+    static IIOMetadataNode child(IIOMetadataNode parent, String name) {
+        for (int i = 0; i < parent.getLength(); i += 1) {
+            if (parent.item(i).getNodeName().equals(name)) {
+                return (IIOMetadataNode) parent.item(i);
+            }
+        }
+        IIOMetadataNode node = new IIOMetadataNode(name);
+        parent.appendChild(node);
+        return node;
+    }
+}
+
+class ExamplesRecorder {
+
+    Maze m;
+
+    void init() {
+        m = new Maze(10, 6);
+        m.initMaze();
+    }
+
+    // Returns the frames of the given GIF, and their places, as read back
+    ArrayList<IIOMetadataNode> readPlaces(File file) throws IOException {
+        ImageReader reader = ImageIO.getImageReadersByFormatName("gif").next();
+        ArrayList<IIOMetadataNode> places = new ArrayList<IIOMetadataNode>();
+        try (ImageInputStream in = ImageIO.createImageInputStream(file)) {
+            reader.setInput(in);
+            int count = reader.getNumImages(true);
+            for (int i = 0; i < count; i += 1) {
+                IIOMetadata meta = reader.getImageMetadata(i);
+                IIOMetadataNode root = (IIOMetadataNode) meta
+                    .getAsTree(meta.getNativeMetadataFormatName());
+                places.add(GifRecorder.child(root, "ImageDescriptor"));
+            }
+        }
+        finally {
+            reader.dispose();
+        }
+        return places;
+    }
+
+    void testRecordBFS(Tester t) {
+        this.init();
+        try {
+            File file = File.createTempFile("solve", ".gif");
+            BFSSolver b = new BFSSolver(m.mazeNodes.get(0));
+            GifRecorder rec = new GifRecorder(m, 100, 60);
+
+            int frames = rec.record(b, 1, 2, file);
+            t.checkExpect(b.solved, true);
+            t.checkExpect(frames > 1, true);
+
+            ArrayList<IIOMetadataNode> places = this.readPlaces(file);
+            t.checkExpect(places.size(), frames);
+            t.checkExpect(places.get(0).getAttribute("imageWidth"), "100");
+            t.checkExpect(places.get(0).getAttribute("imageHeight"), "60");
+            // The next frame is only the one cell that was visited
+            t.checkExpect(places.get(1).getAttribute("imageWidth"), "10");
+            t.checkExpect(places.get(1).getAttribute("imageHeight"), "10");
+
+            // What the animation ends on is the solved maze
+            PixelBuffer last = new HeadlessRenderer(m, 100, 60).render(b);
+            t.checkExpect(Arrays.equals(rec.frame.pixels, last.pixels), true);
+            file.delete();
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    void testRecordRepaints(Tester t) {
+        Maze big = new Maze(40, 24);
+        big.initMaze();
+        try {
+            File file = File.createTempFile("colors", ".gif");
+            StepColorer s = new StepColorer(big.mazeNodes.get(0));
+            GifRecorder rec = new GifRecorder(big, 400, 240);
+
+            rec.record(s, 5, 1, file);
+            t.checkExpect(s.solved, true);
+            // Rescaling the colors redraws the whole maze into the frame
+            PixelBuffer last = new HeadlessRenderer(big, 400, 240).render(s);
+            t.checkExpect(Arrays.equals(rec.frame.pixels, last.pixels), true);
+            file.delete();
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    void testTooBigToRecord(Tester t) {
+        Maze big = new Maze(30, 3);
+        t.checkConstructorException(
+            new RuntimeException("Cells are too small to record"),
+            "GifRecorder", big, 20, 20);
+    }
+}
@@ -0,0 +1,656 @@
+import tester.*;
+import javalib.impworld.*;
+import java.awt.Color;
+import javalib.worldimages.*;
+import java.util.*;
+
+// Something that rectangles of pixels can be drawn onto
+interface RectPainter {
+
+    // EFFECT: Colors the given rectangle of pixels
+    void fillRect(int x, int y, int w, int h, Color color);
+}
+
+// An image that is drawn into one pixel at a time and kept between frames,
+// so whatever is drawn into it does not have to be redrawn every frame
+class PixelLayer implements RectPainter {
+
+    ComputedPixelImage image; // The pixels
+    int width; // Width of the layer in pixels
+    int height; // Height of the layer in pixels
+
+    // Constructor for a fully transparent layer
+    PixelLayer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.image = new ComputedPixelImage(width, height);
+    }
+
+    // EFFECT: Colors the given rectangle of pixels, clipped to this layer
+    public void fillRect(int x, int y, int w, int h, Color color) {
+        int left = Math.max(x, 0);
+        int top = Math.max(y, 0);
+        int right = Math.min(x + w, this.width);
+        int bottom = Math.min(y + h, this.height);
+
+        for (int py = top; py < bottom; py += 1) {
+            for (int px = left; px < right; px += 1) {
+                this.image.setPixel(px, py, color);
+            }
+        }
+    }
+
+    // EFFECT: Places this layer onto the given scene, lined up with the
+    // scene's top left corner
+    void placeOnto(WorldScene bg) {
+        bg.placeImageXY(this.image, this.width / 2, this.height / 2);
+    }
+}
+
+// Something that nodes (cells) of a maze can be drawn onto
+interface CellPainter {
+
+    // EFFECT: Draws the given node in the given color
+    void paintCell(Node n, Color c);
+}
+
+// The part of a maze that fits in the window, and how big it is drawn.
+// Zoomed in, every cell is a square of cellSize pixels. Zoomed out past one
+// pixel per cell, each pixel is a tile of tileSize by tileSize cells.
+class Viewport {
+
+    static final int MAX_CELL_SIZE = 64; // Largest a cell can be zoomed to
+    static final int MIN_WALL_SIZE = 4; // Smallest cell that gets walls
+
+    int mazeWidth; // Width of the maze, in cells
+    int mazeHeight; // Height of the maze, in cells
+    int width; // Width of the window, in pixels
+    int height; // Height of the window, in pixels
+
+    int cellSize; // Size of a cell (or of a tile, if zoomed out) in pixels
+    int tileSize; // Cells across a tile; 1 unless zoomed out past one pixel
+    int left; // The leftmost cell column shown
+    int top; // The topmost cell row shown
+
+    // Constructor for a view that fits the whole maze in the window
+    Viewport(int mazeWidth, int mazeHeight, int width, int height) {
+        this.mazeWidth = mazeWidth;
+        this.mazeHeight = mazeHeight;
+        this.width = width;
+        this.height = height;
+        this.fit();
+    }
+
+    // EFFECT: Zooms until the whole maze just fits, and scrolls to its top
+    // left corner
+    void fit() {
+        this.cellSize = Math.max(1, Math.min(this.width / this.mazeWidth,
+            this.height / this.mazeHeight));
+        this.tileSize = Math.max(1,
+            Math.max(Viewport.ceilDiv(this.mazeWidth, this.width),
+                Viewport.ceilDiv(this.mazeHeight, this.height)));
+        this.left = 0;
+        this.top = 0;
+    }
+
+    // How many cell columns the window could show at this zoom
+    int spanX() {
+        return Viewport.ceilDiv(this.width, this.cellSize) * this.tileSize;
+    }
+
+    // How many cell rows the window could show at this zoom
+    int spanY() {
+        return Viewport.ceilDiv(this.height, this.cellSize) * this.tileSize;
+    }
+
+    // How many of the maze's columns are shown
+    int columns() {
+        return Math.min(this.mazeWidth - this.left, this.spanX());
+    }
+
+    // How many of the maze's rows are shown
+    int rows() {
+        return Math.min(this.mazeHeight - this.top, this.spanY());
+    }
+
+    // Is the given node in view?
+    boolean shows(Node n) {
+        return n.x >= this.left && n.x < this.left + this.columns()
+            && n.y >= this.top && n.y < this.top + this.rows();
+    }
+
+    // Is the whole maze in view?
+    boolean showsAll() {
+        return this.left == 0 && this.top == 0
+            && this.columns() == this.mazeWidth
+            && this.rows() == this.mazeHeight;
+    }
+
+    // Are cells big enough to draw the walls between them?
+    boolean showsWalls() {
+        return this.tileSize == 1 && this.cellSize >= Viewport.MIN_WALL_SIZE;
+    }
+
+    // The x coordinate, in pixels, of the left side of the given column
+    int screenX(int x) {
+        return (x - this.left) / this.tileSize * this.cellSize;
+    }
+
+    // The y coordinate, in pixels, of the top of the given row
+    int screenY(int y) {
+        return (y - this.top) / this.tileSize * this.cellSize;
+    }
+
+    // EFFECT: Zooms in one step, keeping the middle of the view in place
+    void zoomIn() {
+        int x = this.left + this.columns() / 2;
+        int y = this.top + this.rows() / 2;
+        if (this.tileSize > 1) {
+            this.tileSize /= 2;
+        }
+        else if (this.cellSize * 2 <= Viewport.MAX_CELL_SIZE) {
+            this.cellSize *= 2;
+        }
+        this.centerOn(x, y);
+    }
+
+    // EFFECT: Zooms out one step, keeping the middle of the view in place,
+    // unless the whole maze is already in view
+    void zoomOut() {
+        if (this.showsAll()) {
+            return;
+        }
+        int x = this.left + this.columns() / 2;
+        int y = this.top + this.rows() / 2;
+        if (this.cellSize > 1) {
+            this.cellSize /= 2;
+        }
+        else {
+            this.tileSize *= 2;
+        }
+        this.centerOn(x, y);
+    }
+
+    // EFFECT: Scrolls a quarter of the window in the given direction
+    void pan(Direction d) {
+        this.left += d.dx * Math.max(1, this.spanX() / 4);
+        this.top += d.dy * Math.max(1, this.spanY() / 4);
+        this.clamp();
+    }
+
+    // EFFECT: Scrolls so the given cell is as near the middle as it can be
+    void centerOn(int x, int y) {
+        this.left = x - this.spanX() / 2;
+        this.top = y - this.spanY() / 2;
+        this.clamp();
+    }
+
+    // EFFECT: Scrolls back to the maze if this view went past its edges
+    void clamp() {
+        this.left = Math.max(0,
+            Math.min(this.left, this.mazeWidth - this.spanX()));
+        this.top = Math.max(0,
+            Math.min(this.top, this.mazeHeight - this.spanY()));
+    }
+
+    // Divides a by b, rounding up (for positive numbers)
+    static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+}
+
+// A layer that the cells of a maze in view are drawn onto, and that keeps
+// them between frames. Zoomed out to tiles, each tile is drawn in the color
+// of its last drawn cell, faded toward white by how few of the tile's cells
+// have been drawn at all.
+class CellCanvas implements CellPainter {
+
+    PixelLayer layer; // The drawn cells
+    Viewport view; // Which cells are drawn, and where
+
+    // For tiles only: which cells have been drawn, by column then row, and
+    // how many cells of each tile have been drawn, by tile row then column
+    BitSet drawn;
+    int[] tileCounts;
+
+    // Constructor for a canvas with nothing drawn on it
+    CellCanvas(Viewport view) {
+        this.layer = new PixelLayer(view.width, view.height);
+        this.view = view;
+        if (view.tileSize > 1) {
+            this.drawn = new BitSet();
+            this.tileCounts = new int[view.width * view.height];
+        }
+    }
+
+    // EFFECT: Fills the given node's square (or its tile's pixel) with the
+    // given color, if the node is in view
+    public void paintCell(Node n, Color c) {
+        if (!this.view.shows(n)) {
+            return;
+        }
+        int px = this.view.screenX(n.x);
+        int py = this.view.screenY(n.y);
+
+        if (this.tileCounts == null) {
+            this.layer.fillRect(px, py, this.view.cellSize,
+                this.view.cellSize, c);
+        }
+        else {
+            int cell = n.x * this.view.mazeHeight + n.y;
+            int tile = py * this.view.width + px;
+            if (!this.drawn.get(cell)) {
+                this.drawn.set(cell);
+                this.tileCounts[tile] += 1;
+            }
+            this.layer.fillRect(px, py, 1, 1, CellCanvas.fade(c,
+                this.tileCounts[tile], this.view.tileSize));
+        }
+    }
+
+    // Returns the color of a tile of the given size whose last drawn cell
+    // was the given color, given how many of its cells have been drawn
+    static Color fade(Color c, int drawn, int tileSize) {
+        double density = drawn / (double) (tileSize * tileSize);
+        return new Color(Palette.blend(255, c.getRed(), density),
+            Palette.blend(255, c.getGreen(), density),
+            Palette.blend(255, c.getBlue(), density));
+    }
+}
+
+// A menu made of images stacked down one column. Its images are made once,
+// when the menu is, and reused every time the menu is drawn.
+class MenuOverlay {
+
+    ArrayList<WorldImage> items; // The images in this menu, top to bottom
+    ArrayList<Integer> heights; // The y coordinate of each item's center
+
+    // Constructor for a menu with nothing in it
+    MenuOverlay() {
+        this.items = new ArrayList<WorldImage>();
+        this.heights = new ArrayList<Integer>();
+    }
+
+    // Returns this menu, with the given image centered at the given height
+    // EFFECT: Adds the given image to this menu
+    MenuOverlay add(WorldImage item, int y) {
+        this.items.add(item);
+        this.heights.add(y);
+        return this;
+    }
+
+    // EFFECT: Places every item of this menu onto the given scene, centered
+    // on the given x coordinate
+    void placeOnto(WorldScene bg, int x) {
+        for (int i = 0; i < this.items.size(); i += 1) {
+            bg.placeImageXY(this.items.get(i), x, this.heights.get(i));
+        }
+    }
+}
+
+// A CellPainter that just remembers what it was asked to draw, in order
+class CellLog implements CellPainter {
+
+    ArrayList<Node> nodes = new ArrayList<Node>();
+    ArrayList<Color> colors = new ArrayList<Color>();
+
+    // EFFECT: Records the given node and color
+    public void paintCell(Node n, Color c) {
+        this.nodes.add(n);
+        this.colors.add(c);
+    }
+
+    // EFFECT: Draws everything recorded here onto the given painter, in the
+    // order it was recorded
+    void replayOnto(CellPainter p) {
+        for (int i = 0; i < this.nodes.size(); i += 1) {
+            p.paintCell(this.nodes.get(i), this.colors.get(i));
+        }
+    }
+}
+
+class ExamplesRender {
+
+    void testFillRect(Tester t) {
+        PixelLayer layer = new PixelLayer(10, 8);
+
+        layer.fillRect(2, 3, 2, 2, Color.red);
+        t.checkExpect(layer.image.getPixel(2, 3), Color.red);
+        t.checkExpect(layer.image.getPixel(3, 4), Color.red);
+        t.checkExpect(layer.image.getPixel(4, 4).equals(Color.red), false);
+        t.checkExpect(layer.image.getPixel(2, 5).equals(Color.red), false);
+
+        // Anything outside the layer is cut off instead of failing
+        layer.fillRect(-5, 6, 100, 100, Color.blue);
+        t.checkExpect(layer.image.getPixel(0, 7), Color.blue);
+        t.checkExpect(layer.image.getPixel(9, 6), Color.blue);
+    }
+
+    void testWallRendering(Tester t) {
+        PixelLayer layer = new PixelLayer(40, 40);
+        Viewport view = new Viewport(2, 2, 20, 20);
+        Node n00 = new Node(0, 0);
+        Node n10 = new Node(1, 0);
+        Node n01 = new Node(0, 1);
+
+        // A passage to the right, and a wall below
+        Edge side = new Edge(1);
+        side.setN1(n00);
+        side.setN2(n10);
+        n00.addEdge(side);
+        n10.addEdge(side);
+
+        t.checkExpect(view.cellSize, 10);
+        n00.renderWallsOnto(layer, view);
+
+        // No wall between the side by side nodes
+        t.checkExpect(layer.image.getPixel(9, 0).equals(Color.black), false);
+        t.checkExpect(layer.image.getPixel(10, 5).equals(Color.black), false);
+        // A wall between stacked nodes runs along their shared border
+        t.checkExpect(layer.image.getPixel(0, 9), Color.black);
+        t.checkExpect(layer.image.getPixel(9, 10), Color.black);
+        t.checkExpect(layer.image.getPixel(5, 11).equals(Color.black), false);
+
+        // Nodes on the maze's right and bottom edges get no walls there, so
+        // the bottom node only has a wall to its right
+        n01.renderWallsOnto(layer, view);
+        t.checkExpect(layer.image.getPixel(9, 15), Color.black);
+        t.checkExpect(layer.image.getPixel(10, 15), Color.black);
+        t.checkExpect(layer.image.getPixel(5, 19).equals(Color.black), false);
+    }
+
+    void testStaticLayerCached(Tester t) {
+        MazeWorld m = new MazeWorld(5, 4);
+
+        PixelLayer layer = m.staticLayer();
+        t.checkExpect(m.staticLayer() == layer, true);
+        t.checkExpect(layer.width, MazeWorld.WINDOW_WIDTH * 6 / 5);
+        // The menu background and the outline are in it
+        t.checkExpect(layer.image.getPixel(MazeWorld.WINDOW_WIDTH + 5, 5),
+            Color.black);
+        t.checkExpect(layer.image.getPixel(0, 0), Color.black);
+
+        // Drawing a frame reuses the layer
+        m.solver = new DFSSolver(m.maze.mazeNodes.get(0));
+        m.makeScene();
+        t.checkExpect(m.staticLayer == layer, true);
+
+        // A new maze gets a new layer
+        m.newMaze();
+        t.checkExpect(m.staticLayer, null);
+        t.checkExpect(m.staticLayer() == layer, false);
+    }
+
+    void testSolverPublishesChanges(Tester t) {
+        Maze m = new Maze(6, 5);
+        m.initMaze();
+        DFSSolver d = new DFSSolver(m.mazeNodes.get(0));
+
+        // Nothing is recorded until someone draws the solver
+        d.step();
+        t.checkExpect(d.changedNodes.size(), 0);
+
+        CellLog full = new CellLog();
+        d.renderOnto(full);
+        t.checkExpect(full.nodes.contains(m.mazeNodes.get(0)), true);
+        t.checkExpect(d.publishing, true);
+
+        // From then on only the newly visited node is drawn each step
+        int visitedBefore = d.visited.size();
+        while (d.visited.size() == visitedBefore) {
+            d.step();
+        }
+        CellLog changes = new CellLog();
+        d.flushChanges(changes);
+        t.checkExpect(changes.nodes.size(), 1);
+        t.checkExpect(changes.nodes.get(0), d.visited.get(visitedBefore));
+        t.checkExpect(changes.colors.get(0), Color.cyan);
+
+        // and flushing forgets what was drawn
+        CellLog again = new CellLog();
+        d.flushChanges(again);
+        t.checkExpect(again.nodes.size(), 0);
+
+        // Solving draws the path on top
+        while (!d.solved) {
+            d.step();
+        }
+        CellLog last = new CellLog();
+        d.flushChanges(last);
+        t.checkExpect(last.nodes.get(last.nodes.size() - 1), d.first);
+        t.checkExpect(last.colors.get(last.colors.size() - 1), Color.blue);
+    }
+
+    void testPlayerPublishesMoves(Tester t) {
+        Maze m = new Maze(3, 3);
+        m.randomEdges();
+        Player p = new Player(m.mazeNodes.get(0));
+        p.renderOnto(new CellLog());
+
+        p.step(Direction.DOWN);
+        CellLog moved = new CellLog();
+        p.flushChanges(moved);
+        // The new spot is visited, the old one goes back to its color and
+        // the player is drawn on top
+        t.checkExpect(moved.nodes.get(moved.nodes.size() - 1), p.loc);
+        t.checkExpect(moved.colors.get(moved.colors.size() - 1), Color.black);
+        t.checkExpect(moved.nodes.contains(m.mazeNodes.get(0)), true);
+        t.checkExpect(moved.colors.contains(ASolver.START_COLOR), true);
+    }
+
+    void testCellLayerIsIncremental(Tester t) {
+        MazeWorld m = new MazeWorld(8, 6);
+        m.onKeyEvent("b");
+
+        CellCanvas layer = m.cellLayer();
+        t.checkExpect(m.shownSolver, m.solver);
+
+        m.onTick();
+        m.onTick();
+        // Same canvas, with the visited cells drawn in
+        t.checkExpect(m.cellLayer() == layer, true);
+        t.checkExpect(m.solver.changedNodes.size(), 0);
+        t.checkExpect(layer.layer.image.getPixel(1, 1), ASolver.START_COLOR);
+
+        // Switching solvers starts over on a new canvas
+        m.onKeyEvent("\n");
+        t.checkExpect(m.cellLayer() == layer, false);
+        t.checkExpect(m.shownSolver, null);
+    }
+
+    void testMenuOverlay(Tester t) {
+        WorldImage title = new TextImage("Menu", 20, Color.red);
+        MenuOverlay menu = new MenuOverlay().add(title, 10).add(title, 30);
+
+        t.checkExpect(menu.items.size(), 2);
+        t.checkExpect(menu.heights, new ArrayList<Integer>(
+            Arrays.asList(10, 30)));
+
+        // The menus are made once and shared by every maze
+        t.checkExpect(MazeWorld.MAIN_MENU.items.size(), 12);
+        t.checkExpect(MazeWorld.PLAYER_MENU.items.size(), 7);
+        t.checkExpect(MazeWorld.IN_GAME_MENU.items.size(), 3);
+    }
+
+    void testPaletteOptionCached(Tester t) {
+        MazeWorld m = new MazeWorld(4, 3);
+
+        WorldImage option = m.paletteOption();
+        t.checkExpect(m.paletteOptionFor, Palette.COLORBLIND_SAFE);
+        m.makeScene();
+        t.checkExpect(m.paletteOption() == option, true);
+
+        // Switching palettes changes what the line offers, so it is remade
+        m.onKeyEvent("v");
+        t.checkExpect(m.paletteOption() == option, false);
+        t.checkExpect(m.paletteOptionFor, Palette.RAINBOW);
+    }
+
+    void testViewportFits(Tester t) {
+        Viewport small = new Viewport(100, 60, 1000, 600);
+        t.checkExpect(small.cellSize, 10);
+        t.checkExpect(small.tileSize, 1);
+        t.checkExpect(small.showsAll(), true);
+        t.checkExpect(small.showsWalls(), true);
+        t.checkExpect(small.screenX(3), 30);
+
+        // Too big for a pixel per cell, so cells are grouped into tiles
+        Viewport big = new Viewport(3000, 1000, 1000, 600);
+        t.checkExpect(big.cellSize, 1);
+        t.checkExpect(big.tileSize, 3);
+        t.checkExpect(big.showsAll(), true);
+        t.checkExpect(big.showsWalls(), false);
+        t.checkExpect(big.screenX(2999), 999);
+        t.checkExpect(big.screenY(5), 1);
+    }
+
+    void testZoomAndPan(Tester t) {
+        Viewport v = new Viewport(100, 60, 1000, 600);
+
+        v.zoomIn();
+        t.checkExpect(v.cellSize, 20);
+        t.checkExpect(v.columns(), 50);
+        // Zooming keeps the middle of the maze in the middle
+        t.checkExpect(v.left, 25);
+        t.checkExpect(v.top, 15);
+        t.checkExpect(v.shows(new Node(0, 0)), false);
+        t.checkExpect(v.shows(new Node(50, 30)), true);
+        t.checkExpect(v.screenX(25), 0);
+
+        v.pan(Direction.LEFT);
+        t.checkExpect(v.left, 13);
+        v.pan(Direction.LEFT);
+        v.pan(Direction.LEFT);
+        // Scrolling stops at the edge of the maze
+        t.checkExpect(v.left, 0);
+        v.pan(Direction.DOWN);
+        v.pan(Direction.DOWN);
+        v.pan(Direction.DOWN);
+        t.checkExpect(v.top, 30);
+
+        v.zoomOut();
+        t.checkExpect(v.showsAll(), true);
+        // Zooming out any further would only shrink the maze
+        v.zoomOut();
+        t.checkExpect(v.cellSize, 10);
+
+        // Doubling again would pass the largest cell size
+        for (int i = 0; i < 10; i += 1) {
+            v.zoomIn();
+        }
+        t.checkExpect(v.cellSize, 40);
+
+        Viewport big = new Viewport(4000, 2400, 1000, 600);
+        t.checkExpect(big.tileSize, 4);
+        big.zoomIn();
+        t.checkExpect(big.tileSize, 2);
+        t.checkExpect(big.columns(), 2000);
+        big.zoomIn();
+        big.zoomIn();
+        t.checkExpect(big.tileSize, 1);
+        t.checkExpect(big.cellSize, 2);
+        big.zoomOut();
+        big.zoomOut();
+        t.checkExpect(big.tileSize, 2);
+    }
+
+    void testTilesShowDensity(Tester t) {
+        CellCanvas c = new CellCanvas(new Viewport(4, 2, 2, 1));
+        t.checkExpect(c.view.tileSize, 2);
+
+        // One of the tile's four cells drawn, faded three quarters to white
+        c.paintCell(new Node(0, 0), Color.black);
+        t.checkExpect(c.layer.image.getPixel(0, 0), new Color(191, 191, 191));
+        // Drawing the same cell again does not make it denser
+        c.paintCell(new Node(0, 0), Color.black);
+        t.checkExpect(c.tileCounts[0], 1);
+
+        c.paintCell(new Node(1, 0), Color.black);
+        c.paintCell(new Node(0, 1), Color.black);
+        c.paintCell(new Node(1, 1), Color.red);
+        t.checkExpect(c.layer.image.getPixel(0, 0), Color.red);
+        t.checkExpect(c.tileCounts[1], 0);
+
+        c.paintCell(new Node(3, 1), Color.blue);
+        t.checkExpect(c.tileCounts[1], 1);
+    }
+
+    void testMazeView(Tester t) {
+        MazeWorld m = new MazeWorld(100, 60);
+        PixelLayer walls = m.staticLayer();
+        CellCanvas cells = m.cellLayer();
+
+        // Zooming and scrolling draw the maze again for the new view
+        m.onKeyEvent("+");
+        t.checkExpect(m.view.cellSize, 20);
+        t.checkExpect(m.staticLayer == null, true);
+        t.checkExpect(m.staticLayer() == walls, false);
+        t.checkExpect(m.cellLayer() == cells, false);
+        // The end is out of view, so it is not drawn
+        t.checkExpect(m.cellLayer().layer.image.getPixel(999, 599)
+            .equals(Color.magenta), false);
+        m.onKeyEvent("right");
+        m.onKeyEvent("right");
+        m.onKeyEvent("right");
+        m.onKeyEvent("down");
+        m.onKeyEvent("down");
+        m.onKeyEvent("down");
+        t.checkExpect(m.cellLayer().layer.image.getPixel(990, 590),
+            Color.magenta);
+        m.onKeyEvent("-");
+        t.checkExpect(m.view.showsAll(), true);
+
+        // A player walking out of view pulls the view along
+        m.onKeyEvent("=");
+        m.onKeyEvent("=");
+        m.onKeyEvent("p");
+        t.checkExpect(m.view.left, 38);
+        Player p = (Player) m.solver;
+        p.loc = m.maze.nodeAt(1, 1);
+        m.onKeyEvent("up");
+        t.checkExpect(m.view.shows(p.loc), true);
+        t.checkExpect(m.view.left, 0);
+        t.checkExpect(m.view.top, 0);
+        t.checkExpect(m.maze.nodeAt(3, 2), m.maze.mazeNodes.get(3 * 60 + 2));
+    }
+
+    void testHugeMaze(Tester t) {
+        MazeWorld m = new MazeWorld(2000, 10);
+        t.checkExpect(m.view.tileSize, 2);
+
+        // Too small to show walls, but still outlined
+        PixelLayer layer = m.staticLayer();
+        t.checkExpect(layer.image.getPixel(0, 0), Color.black);
+        t.checkExpect(layer.image.getPixel(500, 4), Color.black);
+        t.checkExpect(layer.image.getPixel(500, 2).equals(Color.black),
+            false);
+
+        // Coloring by depth fills in the tiles, not just the end's
+        m.onKeyEvent("c");
+        t.checkExpect(m.cellLayer().layer.image.getPixel(500, 2).getAlpha(),
+            255);
+    }
+
+    void testStepColorerRescales(Tester t) {
+        Maze m = new Maze(30, 20);
+        m.initMaze();
+        StepColorer s = new StepColorer(m.mazeNodes.get(0));
+        s.renderOnto(new CellLog());
+
+        while (!s.solved && s.furthestDist <= 256) {
+            s.step();
+        }
+        if (!s.solved) {
+            // Passing the end of the rainbow stretches it, redrawing it all
+            t.checkExpect(s.colorScale, 512);
+            t.checkExpect(s.needsRepaint, true);
+            s.renderOnto(new CellLog());
+            t.checkExpect(s.needsRepaint, false);
+        }
+        while (!s.solved) {
+            s.step();
+        }
+        t.checkExpect(s.colorScale, s.furthestDist);
+        t.checkExpect(s.needsRepaint, true);
+    }
+}
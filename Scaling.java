@@ -0,0 +1,406 @@
+import tester.*;
+import java.io.*;
+import java.util.*;
+
+// One phase of making or solving a maze of one size: how long it took, how
+// many bytes it allocated, and the most the heap held while the maze of
+// that size was made and solved
+class ScalingPoint {
+
+    long cells; // How many cells the maze had
+    int width; // Width in nodes of the maze
+    int height; // Height in nodes of the maze
+    String phase; // The phase measured
+    long nanos; // How long the phase took
+    long bytes; // How many bytes the phase allocated (-1 if not counted)
+    long peakHeapBytes; // The heap's peak over the maze's whole size
+
+    // Constructor
+    ScalingPoint(Maze maze, String phase, long nanos, long bytes,
+        long peakHeapBytes) {
+        this.cells = (long) maze.width * maze.height;
+        this.width = maze.width;
+        this.height = maze.height;
+        this.phase = phase;
+        this.nanos = nanos;
+        this.bytes = bytes;
+        this.peakHeapBytes = peakHeapBytes;
+    }
+
+    // This point as a row of the CSV file
+    String toCsv() {
+        return this.cells + "," + this.width + "," + this.height + ","
+            + this.phase + "," + this.nanos + "," + this.bytes + ","
+            + this.peakHeapBytes;
+    }
+}
+
+// Makes and solves square mazes of sizes growing geometrically, from 10^2
+// cells towards 10^8, timing each generation phase and each solve and
+// counting what they allocate. Writes every measurement to a CSV file and
+// prints, for each phase, the exponent k that best fits time ~ cells^k (and
+// bytes ~ cells^k), so a phase that has gone quadratic stands out. Stops
+// early once a size takes longer than the budget, or runs out of memory,
+// since the next size would only take longer:
+//     java -Xmx8g -cp out ScalingCurve --to 1000000 --budget 120 bfs fast
+class ScalingCurve {
+
+    static final String USAGE = "usage: ScalingCurve [SOLVER...]"
+        + " [--from CELLS] [--to CELLS] [--factor N] [--budget SECONDS]"
+        + " [--out FILE]";
+    static final String HEADER =
+        "cells,width,height,phase,nanos,allocatedBytes,peakHeapBytes";
+    static final long SEED = 20180215L; // Every maze comes from this seed
+    // The most cells a square maze can have: its nodes are counted, and
+    // numbered, with ints
+    static final long MAX_CELLS = 46340L * 46340L;
+
+    long from; // The fewest cells to measure
+    long to; // The most cells to measure
+    int factor; // How many times more cells each size has than the last
+    long budgetNanos; // Stop once one size takes longer than this
+    File out; // Where to write the measurements
+    ArrayList<String> solvers; // The solvers to time, as MazeCli names them
+    String stoppedBecause; // Why the largest sizes were not measured, if not
+
+    // Constructor from the command line's arguments
+    ScalingCurve(String[] args) {
+        this.from = 100;
+        this.to = 100000000;
+        this.factor = 10;
+        this.budgetNanos = 60 * 1000000000L;
+        this.out = new File("scaling.csv");
+        this.solvers = new ArrayList<String>();
+
+        for (int i = 0; i < args.length; i += 1) {
+            if (args[i].startsWith("--")) {
+                if (i + 1 == args.length) {
+                    throw new RuntimeException(args[i] + " needs a value");
+                }
+                String value = args[i + 1];
+                if (args[i].equals("--from")) {
+                    this.from = MazeCli.number(value);
+                }
+                else if (args[i].equals("--to")) {
+                    this.to = MazeCli.number(value);
+                }
+                else if (args[i].equals("--factor")) {
+                    this.factor = (int) MazeCli.number(value);
+                }
+                else if (args[i].equals("--budget")) {
+                    this.budgetNanos = MazeCli.number(value) * 1000000000L;
+                }
+                else if (args[i].equals("--out")) {
+                    this.out = new File(value);
+                }
+                else {
+                    throw new RuntimeException("Unknown option: " + args[i]);
+                }
+                i += 1;
+            }
+            else if (Arrays.asList(MazeCli.SOLVERS).contains(args[i])) {
+                this.solvers.add(args[i]);
+            }
+            else {
+                throw new RuntimeException("Unknown solver: " + args[i]);
+            }
+        }
+
+        if (this.from < 1 || this.to < this.from || this.factor < 2) {
+            throw new RuntimeException(
+                "Sizes must grow from at least one cell");
+        }
+        if (this.to > ScalingCurve.MAX_CELLS) {
+            throw new RuntimeException("Mazes are limited to "
+                + ScalingCurve.MAX_CELLS + " cells");
+        }
+        if (this.solvers.isEmpty()) {
+            this.solvers.add("bfs");
+            this.solvers.add("fast");
+        }
+    }
+
+    public static void main(String[] args) {
+        ScalingCurve curve;
+        try {
+            curve = new ScalingCurve(args);
+        }
+        catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.err.println(ScalingCurve.USAGE);
+            System.exit(2);
+            return;
+        }
+        ArrayList<ScalingPoint> points = curve.measure(System.out);
+        curve.write(points);
+        for (String line : ScalingCurve.summary(points)) {
+            System.out.println(line);
+        }
+        if (curve.stoppedBecause != null) {
+            System.out.println("stopped: " + curve.stoppedBecause);
+        }
+    }
+
+    // The number of cells in each size measured, smallest first
+    ArrayList<Long> sizes() {
+        ArrayList<Long> sizes = new ArrayList<Long>();
+        long n = this.from;
+        sizes.add(n);
+        // Checked before multiplying, so n can't overflow past to
+        while (n <= this.to / this.factor) {
+            n *= this.factor;
+            sizes.add(n);
+        }
+        return sizes;
+    }
+
+    // Returns the measurements of every size, printing a line as each size
+    // is done, until the sizes run out, one takes longer than the budget,
+    // or the heap runs out
+    // EFFECT: Records why it stopped early in stoppedBecause
+    ArrayList<ScalingPoint> measure(PrintStream log) {
+        ArrayList<ScalingPoint> points = new ArrayList<ScalingPoint>();
+        this.stoppedBecause = null;
+
+        for (long cells : this.sizes()) {
+            int side = (int) Math.max(1, Math.round(Math.sqrt(cells)));
+            long start = System.nanoTime();
+            try {
+                points.addAll(this.measure(new Maze(side, side,
+                    ScalingCurve.SEED)));
+            }
+            catch (OutOfMemoryError e) {
+                this.stoppedBecause = "out of memory at " + side + "x" + side;
+                return points;
+            }
+            long nanos = System.nanoTime() - start;
+            log.println(side + "x" + side + " done in "
+                + GenerationMetrics.millis(nanos) + " ms");
+
+            if (nanos > this.budgetNanos) {
+                this.stoppedBecause = side + "x" + side + " took longer than "
+                    + (this.budgetNanos / 1000000000L) + " s";
+                return points;
+            }
+        }
+        return points;
+    }
+
+    // Returns the measurements of each generation phase and each solve of
+    // the given maze
+    // EFFECT: Makes the maze
+    ArrayList<ScalingPoint> measure(Maze maze) {
+        MemoryStats.resetPeakHeap();
+        maze.initMaze();
+        GenerationMetrics g = maze.generationMetrics();
+
+        ArrayList<ScalingPoint> points = new ArrayList<ScalingPoint>();
+        points.add(new ScalingPoint(maze, "edges", g.edgeNanos, g.edgeBytes,
+            0));
+        points.add(new ScalingPoint(maze, "sort", g.sortNanos, g.sortBytes,
+            0));
+        points.add(new ScalingPoint(maze, "reps", g.repsNanos, g.repsBytes,
+            0));
+        points.add(new ScalingPoint(maze, "tree", g.treeNanos, g.treeBytes,
+            0));
+        points.add(new ScalingPoint(maze, "filter", g.filterNanos,
+            g.filterBytes, 0));
+
+        for (String name : this.solvers) {
+            long bytes = MemoryStats.allocatedBytes();
+            long start = System.nanoTime();
+            ASolver solver = MazeCli.newSolver(name, maze);
+            solver.solve();
+            long nanos = System.nanoTime() - start;
+            points.add(new ScalingPoint(maze, "solve " + name, nanos,
+                MemoryStats.allocatedSince(bytes), 0));
+        }
+
+        // The peak covers the whole size, so every phase of it shares it
+        long peak = MemoryStats.peakHeapBytes();
+        for (ScalingPoint p : points) {
+            p.peakHeapBytes = peak;
+        }
+        return points;
+    }
+
+    // EFFECT: Writes the given measurements to this curve's CSV file
+    void write(ArrayList<ScalingPoint> points) {
+        try (PrintWriter w = new PrintWriter(new FileWriter(this.out))) {
+            w.println(ScalingCurve.HEADER);
+            for (ScalingPoint p : points) {
+                w.println(p.toCsv());
+            }
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Could not write " + this.out, e);
+        }
+    }
+
+    // Returns a line for each phase in the given measurements, giving the
+    // exponents that best fit its time and bytes against the cell count
+    static ArrayList<String> summary(ArrayList<ScalingPoint> points) {
+        // Phases in the order they were first measured
+        LinkedHashMap<String, ArrayList<ScalingPoint>> byPhase =
+            new LinkedHashMap<String, ArrayList<ScalingPoint>>();
+        for (ScalingPoint p : points) {
+            if (!byPhase.containsKey(p.phase)) {
+                byPhase.put(p.phase, new ArrayList<ScalingPoint>());
+            }
+            byPhase.get(p.phase).add(p);
+        }
+
+        ArrayList<String> lines = new ArrayList<String>();
+        for (String phase : byPhase.keySet()) {
+            ArrayList<Double> cells = new ArrayList<Double>();
+            ArrayList<Double> nanos = new ArrayList<Double>();
+            ArrayList<Double> bytesCells = new ArrayList<Double>();
+            ArrayList<Double> bytes = new ArrayList<Double>();
+            for (ScalingPoint p : byPhase.get(phase)) {
+                cells.add((double) p.cells);
+                nanos.add((double) p.nanos);
+                if (p.bytes > 0) {
+                    bytesCells.add((double) p.cells);
+                    bytes.add((double) p.bytes);
+                }
+            }
+            lines.add(phase + ": time ~ n^"
+                + ScalingCurve.format(ScalingCurve.exponent(cells, nanos))
+                + ", bytes ~ n^" + ScalingCurve.format(
+                    ScalingCurve.exponent(bytesCells, bytes)));
+        }
+        return lines;
+    }
+
+    // The slope of the least squares line through the logs of the given
+    // points, or NaN if there are fewer than two sizes to fit. Points whose
+    // y is not positive are left out, as they have no log.
+    static double exponent(ArrayList<Double> xs, ArrayList<Double> ys) {
+        int n = 0;
+        double sx = 0;
+        double sy = 0;
+        double sxx = 0;
+        double sxy = 0;
+        for (int i = 0; i < xs.size(); i += 1) {
+            if (xs.get(i) > 0 && ys.get(i) > 0) {
+                double x = Math.log(xs.get(i));
+                double y = Math.log(ys.get(i));
+                n += 1;
+                sx += x;
+                sy += y;
+                sxx += x * x;
+                sxy += x * y;
+            }
+        }
+        double spread = n * sxx - sx * sx;
+        if (n < 2 || spread == 0) {
+            return Double.NaN;
+        }
+        return (n * sxy - sx * sy) / spread;
+    }
+
+    // The given exponent to two places, or "?" if it could not be fitted
+    static String format(double exponent) {
+        if (Double.isNaN(exponent)) {
+            return "?";
+        }
+        return String.format("%.2f", exponent);
+    }
+}
+
+class ExamplesScaling {
+
+    void testArguments(Tester t) {
+        ScalingCurve c = new ScalingCurve(new String[] { "--from", "100",
+            "--to", "10000", "dfs", "--factor", "4", "--budget", "5" });
+        t.checkExpect(c.sizes(), new ArrayList<Long>(
+            Arrays.asList(100L, 400L, 1600L, 6400L)));
+        t.checkExpect(c.solvers, new ArrayList<String>(Arrays.asList("dfs")));
+        t.checkExpect(c.budgetNanos, 5000000000L);
+
+        ScalingCurve all = new ScalingCurve(new String[] {});
+        t.checkExpect(all.sizes().size(), 7);
+        t.checkExpect(all.sizes().get(6), 100000000L);
+
+        // Sizes stop at the last one that fits, even near the limit
+        ScalingCurve big = new ScalingCurve(new String[] { "--from",
+            "1000000000", "--to", "2147395600", "--factor", "2" });
+        t.checkExpect(big.sizes(), new ArrayList<Long>(
+            Arrays.asList(1000000000L, 2000000000L)));
+        ScalingCurve one = new ScalingCurve(new String[] { "--from", "7",
+            "--to", "7" });
+        t.checkExpect(one.sizes(), new ArrayList<Long>(Arrays.asList(7L)));
+        t.checkConstructorException(
+            new RuntimeException("Mazes are limited to 2147395600 cells"),
+            "ScalingCurve",
+            (Object) new String[] { "--to", "9223372036854775807" });
+
+        t.checkConstructorException(
+            new RuntimeException("Unknown option: --size"),
+            "ScalingCurve", (Object) new String[] { "--size", "3" });
+        t.checkConstructorException(
+            new RuntimeException("Sizes must grow from at least one cell"),
+            "ScalingCurve", (Object) new String[] { "--factor", "1" });
+    }
+
+    void testExponent(Tester t) {
+        ArrayList<Double> xs = new ArrayList<Double>(
+            Arrays.asList(10.0, 100.0, 1000.0));
+        ArrayList<Double> squares = new ArrayList<Double>(
+            Arrays.asList(300.0, 30000.0, 3000000.0));
+        ArrayList<Double> flat = new ArrayList<Double>(
+            Arrays.asList(5.0, 5.0, 5.0));
+        t.checkInexact(ScalingCurve.exponent(xs, squares), 2.0, 0.0001);
+        // Rounding leaves a flat line a hair off zero, which is too small
+        // for a tolerance relative to zero to allow
+        t.checkExpect(Math.abs(ScalingCurve.exponent(xs, flat)) < 0.0001,
+            true);
+        t.checkExpect(ScalingCurve.format(ScalingCurve.exponent(
+            new ArrayList<Double>(Arrays.asList(10.0)),
+            new ArrayList<Double>(Arrays.asList(5.0)))), "?");
+        t.checkExpect(ScalingCurve.format(1.234), "1.23");
+    }
+
+    void testMeasureAndWrite(Tester t) {
+        try {
+            File file = File.createTempFile("scaling", ".csv");
+            ScalingCurve c = new ScalingCurve(new String[] { "--to", "1000",
+                "--out", file.getPath(), "bfs" });
+            ByteArrayOutputStream log = new ByteArrayOutputStream();
+            ArrayList<ScalingPoint> points = c.measure(new PrintStream(log));
+
+            // Five generation phases and one solve, for 10x10 and 32x32
+            t.checkExpect(points.size(), 12);
+            t.checkExpect(points.get(0).phase, "edges");
+            t.checkExpect(points.get(5).phase, "solve bfs");
+            t.checkExpect(points.get(6).width, 32);
+            t.checkExpect(points.get(6).cells, 1024L);
+            t.checkExpect(points.get(0).peakHeapBytes > 0, true);
+            t.checkExpect(c.stoppedBecause, null);
+
+            c.write(points);
+            BufferedReader r = new BufferedReader(new FileReader(file));
+            t.checkExpect(r.readLine(), ScalingCurve.HEADER);
+            t.checkExpect(r.readLine().startsWith("100,10,10,edges,"), true);
+            r.close();
+            file.delete();
+
+            ArrayList<String> summary = ScalingCurve.summary(points);
+            t.checkExpect(summary.size(), 6);
+            t.checkExpect(summary.get(3).startsWith("tree: time ~ n^"), true);
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    void testBudget(Tester t) {
+        ScalingCurve c = new ScalingCurve(new String[] { "--from", "400",
+            "--budget", "0" });
+        ArrayList<ScalingPoint> points = c.measure(
+            new PrintStream(new ByteArrayOutputStream()));
+        // The first size already took longer than no time at all
+        t.checkExpect(points.size(), 7);
+        t.checkExpect(c.stoppedBecause, "20x20 took longer than 0 s");
+    }
+}
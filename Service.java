@@ -0,0 +1,701 @@
+import tester.*;
+import java.io.*;
+import java.lang.reflect.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import com.sun.net.httpserver.*;
+
+// Serves mazes and their solutions as JSON over HTTP on localhost, using
+// the JDK's own server, so a web front end can draw them:
+//     GET /generate?width=W&height=H[&seed=S][&algorithm=kruskal]
+//     GET /solve?id=ID[&solver=bfs]
+//     GET /path?id=ID[&solver=bfs]
+// A maze's id names its size and seed, so the same id is always the same
+// maze, and one that has fallen out of the cache is simply made again.
+// Each request gets its own thread (a virtual thread, where the JVM has
+// them), but making and solving mazes is CPU work, so that is handed to a
+// pool with a thread per core and a bounded queue. Requests that find the
+// queue full are turned away with a 503 rather than piling up.
+//     java -cp out MazeService --port 8080
+class MazeService {
+
+    static final String USAGE = "usage: MazeService [--port N] [--threads N]";
+    static final int MAX_CELLS = 40000; // Making a maze is still quadratic
+    static final int CACHE_SIZE = 64; // How many mazes are kept
+    static final int QUEUE_SIZE = 256; // How much CPU work may be waiting
+
+    HttpServer server; // The server, once started
+    ExecutorService requests; // Where each request is handled
+    boolean virtualThreads; // Is each request on a virtual thread?
+    ThreadPoolExecutor workers; // Where mazes are made and solved
+    LinkedHashMap<String, Maze> mazes; // The most recently used mazes
+
+    // Constructor for a service doing its CPU work on the given number of
+    // threads
+    MazeService(int threads) {
+        if (threads < 1) {
+            throw new RuntimeException("A service needs at least one thread");
+        }
+        this.workers = new ThreadPoolExecutor(threads, threads, 0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(MazeService.QUEUE_SIZE));
+        this.mazes = new LinkedHashMap<String, Maze>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<String, Maze> e) {
+                return this.size() > MazeService.CACHE_SIZE;
+            }
+        };
+        this.requests = this.requestExecutor();
+    }
+
+    public static void main(String[] args) {
+        int port = 8080;
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 == args.length) {
+                    throw new RuntimeException(args[i] + " needs a number");
+                }
+                if (args[i].equals("--port")) {
+                    port = (int) MazeCli.number(args[i + 1]);
+                }
+                else if (args[i].equals("--threads")) {
+                    threads = (int) MazeCli.number(args[i + 1]);
+                }
+                else {
+                    throw new RuntimeException("Unknown option: " + args[i]);
+                }
+            }
+        }
+        catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.err.println(MazeService.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        MazeService service = new MazeService(threads);
+        service.start(port);
+        System.out.println("Serving mazes on " + service.url()
+            + "/ (virtual threads: " + service.virtualThreads + ")");
+    }
+
+    // Returns an executor that runs each task on a new virtual thread, or
+    // on a pooled platform thread if this JVM has no virtual threads. Looked
+    // up by name so the service still compiles and runs on older JDKs.
+    // EFFECT: Records which kind it is in virtualThreads
+    ExecutorService requestExecutor() {
+        try {
+            Method m = Executors.class.getMethod(
+                "newVirtualThreadPerTaskExecutor");
+            ExecutorService e = (ExecutorService) m.invoke(null);
+            this.virtualThreads = true;
+            return e;
+        }
+        catch (ReflectiveOperationException e) {
+            // Missing, or still a preview feature that is not turned on
+            this.virtualThreads = false;
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    // EFFECT: Starts serving on the given port of the loopback address (any
+    // free port if it is 0)
+    void start(int port) {
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), port), 0);
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Could not listen on port " + port, e);
+        }
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(this.requests);
+        this.server.start();
+    }
+
+    // The port this service is listening on
+    int port() {
+        return this.server.getAddress().getPort();
+    }
+
+    // The address this service is serving on, as the start of a URL
+    String url() {
+        InetAddress host = this.server.getAddress().getAddress();
+        if (host instanceof Inet6Address) {
+            return "http://[" + host.getHostAddress() + "]:" + this.port();
+        }
+        return "http://" + host.getHostAddress() + ":" + this.port();
+    }
+
+    // EFFECT: Stops serving, and stops every thread this service started
+    void stop() {
+        if (this.server != null) {
+            this.server.stop(0);
+        }
+        this.requests.shutdownNow();
+        this.workers.shutdownNow();
+    }
+
+    // EFFECT: Answers the given request, with JSON whether or not it worked
+    void handle(HttpExchange ex) throws IOException {
+        int status = 200;
+        String body;
+        try {
+            if (!ex.getRequestMethod().equals("GET")) {
+                status = 405;
+                body = MazeService.error("Only GET is supported");
+            }
+            else {
+                body = this.answer(ex.getRequestURI().getPath(),
+                    MazeService.query(ex.getRequestURI()));
+                if (body == null) {
+                    status = 404;
+                    body = MazeService.error("No such endpoint: "
+                        + ex.getRequestURI().getPath());
+                }
+            }
+        }
+        catch (RejectedExecutionException e) {
+            status = 503;
+            body = MazeService.error("Too busy, try again");
+        }
+        catch (RuntimeException e) {
+            status = 400;
+            body = MazeService.error(String.valueOf(e.getMessage()));
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Returns the JSON answer to a request for the given path with the
+    // given parameters, or null if there is no such endpoint
+    String answer(String path, Map<String, String> params) {
+        if (path.equals("/generate")) {
+            return this.compute(() -> this.generate(params));
+        }
+        else if (path.equals("/solve")) {
+            return this.compute(() -> this.solve(params));
+        }
+        else if (path.equals("/path")) {
+            return this.compute(() -> this.path(params));
+        }
+        return null;
+    }
+
+    // Returns the result of the given work, done on this service's workers
+    // Throws RejectedExecutionException if too much work is already waiting
+    String compute(Callable<String> work) {
+        Future<String> result = this.workers.submit(work);
+        try {
+            return result.get();
+        }
+        catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a maze");
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    // Makes the maze asked for, returning its id and the cells each passage
+    // joins, as pairs of cell ids. A cell's id is x * height + y.
+    String generate(Map<String, String> params) {
+        String algorithm = params.getOrDefault("algorithm", "kruskal");
+        if (!algorithm.equals("kruskal")) {
+            throw new RuntimeException("Unknown algorithm: " + algorithm);
+        }
+        int width = (int) MazeService.number(params, "width");
+        int height = (int) MazeService.number(params, "height");
+        long seed;
+        if (params.containsKey("seed")) {
+            seed = MazeService.number(params, "seed");
+        }
+        else {
+            seed = ThreadLocalRandom.current().nextLong();
+        }
+
+        String id = MazeService.id(width, height, seed);
+        Maze maze = this.maze(id);
+        StringBuilder json = new StringBuilder();
+        json.append("{\"id\":\"").append(id).append("\"")
+            .append(",\"width\":").append(width)
+            .append(",\"height\":").append(height)
+            .append(",\"seed\":").append(seed)
+            .append(",\"algorithm\":\"kruskal\"")
+            .append(",\"generationNanos\":")
+            .append(maze.metrics.totalNanos())
+            .append(",\"passages\":[");
+        for (int i = 0; i < maze.spanningTree.size(); i += 1) {
+            Edge e = maze.spanningTree.get(i);
+            if (i > 0) {
+                json.append(",");
+            }
+            json.append("[").append(e.n1.id).append(",").append(e.n2.id)
+                .append("]");
+        }
+        return json.append("]}").toString();
+    }
+
+    // Solves the maze with the given id, returning the solver's counters
+    String solve(Map<String, String> params) {
+        String id = MazeService.param(params, "id");
+        long start = System.nanoTime();
+        ASolver s = this.solved(id, params.getOrDefault("solver", "bfs"));
+        long nanos = System.nanoTime() - start;
+        SolverMetrics m = s.metrics();
+        return "{\"id\":\"" + id + "\""
+            + ",\"solver\":\"" + m.solver + "\""
+            + ",\"solved\":" + m.solved
+            + ",\"expanded\":" + m.nodesExpanded
+            + ",\"duplicatePushes\":" + m.duplicatePushes
+            + ",\"peakWorklist\":" + m.peakWorklist
+            + ",\"pathLength\":" + m.pathLength
+            + ",\"nanos\":" + nanos + "}";
+    }
+
+    // Solves the maze with the given id, returning the ids of the cells on
+    // the way from its start to its end
+    String path(Map<String, String> params) {
+        String id = MazeService.param(params, "id");
+        ASolver s = this.solved(id, params.getOrDefault("solver", "bfs"));
+        if (!s.solved) {
+            throw new RuntimeException("No path through maze " + id);
+        }
+        // The path is stored from the end back to the start
+        ArrayList<Node> path = s.getFinishedPath();
+        StringBuilder json = new StringBuilder();
+        json.append("{\"id\":\"").append(id).append("\",\"path\":[");
+        for (int i = path.size() - 1; i >= 0; i -= 1) {
+            json.append(path.get(i).id);
+            if (i > 0) {
+                json.append(",");
+            }
+        }
+        return json.append("]}").toString();
+    }
+
+    // Returns the given kind of solver, run to the end of the maze with the
+    // given id. Solvers only read the maze and keep what they find to
+    // themselves, so any number of solves of one maze run at once.
+    ASolver solved(String id, String solver) {
+        ASolver s = MazeCli.newSolver(solver, this.maze(id));
+        s.solve();
+        return s;
+    }
+
+    // Returns the maze with the given id, making it if it is not cached
+    // EFFECT: Caches the maze, forgetting the least recently used one if
+    // there are too many
+    Maze maze(String id) {
+        synchronized (this.mazes) {
+            Maze cached = this.mazes.get(id);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        String[] parts = id.split("x", 3);
+        if (parts.length != 3) {
+            throw new RuntimeException("Not a maze id: " + id);
+        }
+        int width = (int) MazeCli.number(parts[0]);
+        int height = (int) MazeCli.number(parts[1]);
+        if (width < 1 || height < 1) {
+            throw new RuntimeException("Sizes must be positive");
+        }
+        if ((long) width * height > MazeService.MAX_CELLS) {
+            throw new RuntimeException("Mazes are limited to "
+                + MazeService.MAX_CELLS + " cells");
+        }
+
+        // Made outside the lock, so one big maze doesn't hold up the rest.
+        // Two requests for the same new maze may both make it, which is
+        // only wasted work, since it comes out the same both times.
+        Maze maze = new Maze(width, height, MazeCli.number(parts[2]));
+        maze.initMaze();
+        synchronized (this.mazes) {
+            this.mazes.put(id, maze);
+        }
+        return maze;
+    }
+
+    // The id of the maze of the given size made from the given seed
+    static String id(int width, int height, long seed) {
+        return width + "x" + height + "x" + seed;
+    }
+
+    // Returns the parameters in the given request's query string
+    static Map<String, String> query(URI uri) {
+        HashMap<String, String> params = new HashMap<String, String>();
+        String query = uri.getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) {
+                params.put(MazeService.decode(pair), "");
+            }
+            else {
+                params.put(MazeService.decode(pair.substring(0, eq)),
+                    MazeService.decode(pair.substring(eq + 1)));
+            }
+        }
+        return params;
+    }
+
+    // The given part of a query string with its escapes undone
+    static String decode(String s) {
+        return URLDecoder.decode(s, StandardCharsets.UTF_8);
+    }
+
+    // Returns the parameter of the given name
+    static String param(Map<String, String> params, String name) {
+        if (!params.containsKey(name)) {
+            throw new RuntimeException("Missing parameter: " + name);
+        }
+        return params.get(name);
+    }
+
+    // Returns the parameter of the given name as a number
+    static long number(Map<String, String> params, String name) {
+        return MazeCli.number(MazeService.param(params, name));
+    }
+
+    // A JSON body reporting the given error
+    static String error(String message) {
+        return "{\"error\":\"" + MazeService.escape(message) + "\"}";
+    }
+
+    // Returns the given text escaped to go between quotes in JSON. Error
+    // messages can echo what was asked for, so anything may be in it.
+    static String escape(String text) {
+        StringBuilder escaped = new StringBuilder();
+        for (int i = 0; i < text.length(); i += 1) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            }
+            else if (c == '\n') {
+                escaped.append("\\n");
+            }
+            else if (c == '\r') {
+                escaped.append("\\r");
+            }
+            else if (c == '\t') {
+                escaped.append("\\t");
+            }
+            else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            }
+            else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
+
+// Fires requests at a maze service from many threads at once and reports
+// how fast they were answered, to load test a service on localhost:
+//     java -cp out MazeLoad "http://localhost:8080/solve?id=100x100x7" 2000 32
+class MazeLoad {
+
+    String url; // The request to make, over and over
+    int requests; // How many times to make it
+    int concurrency; // How many to have in flight at once
+
+    // Constructor
+    MazeLoad(String url, int requests, int concurrency) {
+        if (requests < 1 || concurrency < 1) {
+            throw new RuntimeException("Requests and concurrency must be"
+                + " positive");
+        }
+        this.url = url;
+        this.requests = requests;
+        this.concurrency = concurrency;
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.err.println("usage: MazeLoad URL REQUESTS CONCURRENCY");
+            System.exit(2);
+            return;
+        }
+        MazeLoad load = new MazeLoad(args[0], (int) MazeCli.number(args[1]),
+            (int) MazeCli.number(args[2]));
+        long start = System.nanoTime();
+        LoadResult r = load.run();
+        System.out.println(r.summary(System.nanoTime() - start));
+    }
+
+    // Makes this load's requests, returning how long each took and what
+    // status each got
+    LoadResult run() {
+        ExecutorService pool = Executors.newFixedThreadPool(this.concurrency);
+        ArrayList<Future<long[]>> calls = new ArrayList<Future<long[]>>();
+        for (int i = 0; i < this.requests; i += 1) {
+            calls.add(pool.submit(() -> this.call()));
+        }
+
+        LoadResult result = new LoadResult();
+        try {
+            for (Future<long[]> f : calls) {
+                long[] call = f.get();
+                result.add(call[0], (int) call[1]);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while load testing");
+        }
+        catch (ExecutionException e) {
+            throw new RuntimeException("Could not reach " + this.url,
+                e.getCause());
+        }
+        finally {
+            pool.shutdownNow();
+        }
+        return result;
+    }
+
+    // Makes one request, returning how long it took and its status
+    long[] call() throws IOException {
+        long start = System.nanoTime();
+        HttpURLConnection c = (HttpURLConnection) new URL(this.url)
+            .openConnection();
+        int status = c.getResponseCode();
+        InputStream in;
+        if (status < 400) {
+            in = c.getInputStream();
+        }
+        else {
+            in = c.getErrorStream();
+        }
+        // Read the whole answer, so the connection can be used again
+        try (InputStream body = in) {
+            body.readAllBytes();
+        }
+        return new long[] { System.nanoTime() - start, status };
+    }
+}
+
+// How long each request of a load test took, and how many failed
+class LoadResult {
+
+    ArrayList<Long> nanos; // How long each request took
+    int failed; // How many requests got an error status
+
+    // Constructor
+    LoadResult() {
+        this.nanos = new ArrayList<Long>();
+        this.failed = 0;
+    }
+
+    // EFFECT: Records a request that took the given time and got the given
+    // status
+    void add(long nanos, int status) {
+        this.nanos.add(nanos);
+        if (status >= 400) {
+            this.failed += 1;
+        }
+    }
+
+    // The time within which the given fraction of the requests were
+    // answered
+    long percentile(double fraction) {
+        ArrayList<Long> sorted = new ArrayList<Long>(this.nanos);
+        Collections.sort(sorted);
+        int i = (int) Math.ceil(fraction * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(i, sorted.size() - 1)));
+    }
+
+    // A line reporting these results for a test that took the given time
+    String summary(long elapsedNanos) {
+        return "requests=" + this.nanos.size()
+            + " failed=" + this.failed
+            + " perSecond=" + (this.nanos.size() * 1000000000L
+                / Math.max(1, elapsedNanos))
+            + " p50Ms=" + GenerationMetrics.millis(this.percentile(0.5))
+            + " p99Ms=" + GenerationMetrics.millis(this.percentile(0.99))
+            + " maxMs=" + GenerationMetrics.millis(this.percentile(1));
+    }
+}
+
+class ExamplesService {
+
+    // Returns the map with the given keys and values, in turn
+    Map<String, String> params(String... pairs) {
+        HashMap<String, String> params = new HashMap<String, String>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            params.put(pairs[i], pairs[i + 1]);
+        }
+        return params;
+    }
+
+    void testGenerate(Tester t) {
+        MazeService s = new MazeService(2);
+        String json = s.generate(this.params("width", "4", "height", "3",
+            "seed", "5"));
+        t.checkExpect(json.startsWith("{\"id\":\"4x3x5\",\"width\":4,"
+            + "\"height\":3,\"seed\":5,\"algorithm\":\"kruskal\","), true);
+
+        // A spanning tree of 12 cells has 11 passages
+        Maze m = new Maze(4, 3, 5);
+        m.initMaze();
+        Edge first = m.spanningTree.get(0);
+        t.checkExpect(json.contains("\"passages\":[[" + first.n1.id + ","
+            + first.n2.id + "],"), true);
+        t.checkExpect(json.split("\\],\\[").length, 11);
+
+        // The same id is the same maze, cached
+        t.checkExpect(s.maze("4x3x5"), s.maze("4x3x5"));
+        t.checkExpect(s.maze("4x3x5").spanningTree.size(), 11);
+
+        t.checkException(new RuntimeException("Unknown algorithm: prim"), s,
+            "generate", this.params("width", "4", "height", "3",
+                "algorithm", "prim"));
+        t.checkException(new RuntimeException("Missing parameter: height"),
+            s, "generate", this.params("width", "4"));
+        t.checkException(new RuntimeException("Mazes are limited to 40000"
+            + " cells"), s, "maze", "1000x1000x1");
+        t.checkException(new RuntimeException("Not a maze id: 4x3"), s,
+            "maze", "4x3");
+        s.stop();
+    }
+
+    void testSolveAndPath(Tester t) {
+        MazeService s = new MazeService(2);
+        Maze m = new Maze(6, 4, 9);
+        m.initMaze();
+        BFSSolver b = new BFSSolver(m.mazeNodes.get(0));
+        b.solve();
+
+        String solved = s.solve(this.params("id", "6x4x9"));
+        t.checkExpect(solved.startsWith("{\"id\":\"6x4x9\",\"solver\":"
+            + "\"BFSSolver\",\"solved\":true,\"expanded\":"
+            + b.nodesExpanded() + ","), true);
+        t.checkExpect(s.solve(this.params("id", "6x4x9", "solver", "dfs"))
+            .contains("\"solver\":\"DFSSolver\""), true);
+
+        // From the start to the end
+        String path = s.path(this.params("id", "6x4x9"));
+        t.checkExpect(path.startsWith("{\"id\":\"6x4x9\",\"path\":[0,"), true);
+        t.checkExpect(path.endsWith("," + m.endNode.id + "]}"), true);
+        t.checkExpect(path.split(",").length,
+            b.getFinishedPath().size() + 1);
+
+        t.checkException(new RuntimeException("Unknown solver: astar"), s,
+            "solve", this.params("id", "6x4x9", "solver", "astar"));
+        t.checkException(new RuntimeException("Missing parameter: id"), s,
+            "path", this.params());
+        s.stop();
+    }
+
+    void testConcurrentSolves(Tester t) {
+        MazeService s = new MazeService(2);
+        // Made up front, so every solve below is of this one maze
+        Maze maze = s.maze("30x20x4");
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        ArrayList<Future<ASolver>> solves = new ArrayList<Future<ASolver>>();
+        for (int i = 0; i < 16; i += 1) {
+            String solver = "bfs";
+            if (i % 2 == 0) {
+                solver = "distances";
+            }
+            String kind = solver;
+            solves.add(pool.submit(() -> s.solved("30x20x4", kind)));
+        }
+
+        try {
+            for (Future<ASolver> f : solves) {
+                ASolver solved = f.get();
+                t.checkExpect(solved.solved, true);
+                // Every solve by distance got the one set of distances
+                if (solved instanceof ColorMazeFromStart) {
+                    t.checkExpect(((ColorMazeFromStart) solved).distances
+                        == maze.distancesFromStart(), true);
+                }
+            }
+        }
+        catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+        finally {
+            pool.shutdown();
+            s.stop();
+        }
+    }
+
+    void testQuery(Tester t) {
+        t.checkExpect(MazeService.query(URI.create("/generate?width=3"
+            + "&height=4&algorithm=krus%6Bal&flag")),
+            this.params("width", "3", "height", "4", "algorithm", "kruskal",
+                "flag", ""));
+        t.checkExpect(MazeService.query(URI.create("/generate")),
+            this.params());
+        t.checkExpect(MazeService.error("Not a \"number\""),
+            "{\"error\":\"Not a \\\"number\\\"\"}");
+        // Control characters, as in a decoded id of 5x5x%0A, are escaped
+        // too, so the body is still valid JSON
+        t.checkExpect(MazeService.error("Not a number: \n\r\t\u0001\\"),
+            "{\"error\":\"Not a number: \\n\\r\\t\\u0001\\\\\"}");
+        MazeService s = new MazeService(1);
+        t.checkException(new RuntimeException("Not a number: \n"), s,
+            "maze", "5x5x\n");
+        s.stop();
+    }
+
+    void testOverHttp(Tester t) {
+        MazeService s = new MazeService(2);
+        s.start(0);
+        String base = s.url();
+        try {
+            long[] ok = new MazeLoad(base + "/generate?width=5&height=5"
+                + "&seed=1", 1, 1).call();
+            t.checkExpect(ok[1], 200L);
+            t.checkExpect(new MazeLoad(base + "/solve?id=5x5xq", 1, 1)
+                .call()[1], 400L);
+            t.checkExpect(new MazeLoad(base + "/nowhere", 1, 1).call()[1],
+                404L);
+
+            LoadResult r = new MazeLoad(base + "/path?id=5x5x1&solver=fast",
+                40, 8).run();
+            t.checkExpect(r.nanos.size(), 40);
+            t.checkExpect(r.failed, 0);
+            t.checkExpect(r.summary(1000000000L)
+                .startsWith("requests=40 failed=0 perSecond=40 "), true);
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        finally {
+            s.stop();
+        }
+    }
+
+    void testLoadResult(Tester t) {
+        LoadResult r = new LoadResult();
+        for (int i = 1; i <= 100; i += 1) {
+            r.add(i, 200);
+        }
+        r.add(1000, 503);
+        t.checkExpect(r.failed, 1);
+        t.checkExpect(r.percentile(0.5), 51L);
+        t.checkExpect(r.percentile(1), 1000L);
+        t.checkConstructorException(new RuntimeException("Requests and"
+            + " concurrency must be positive"), "MazeLoad", "x", 0, 1);
+    }
+}
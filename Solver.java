@@ -1,16 +1,54 @@
 import tester.*;
-import javalib.impworld.*;
 import java.awt.Color;
+import java.lang.invoke.*;
 import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.stream.*;
+
+// Which nodes each solver has visited, as one set of bits per node id.
+// Solvers that share one VisitMarks each use their own bit, so a single
+// lookup tells which of them visited a node.
+class VisitMarks {
+
+    byte[] bits; // The marks on each node, by node id
+
+    // Constructor for marks on no nodes
+    VisitMarks() {
+        this(16);
+    }
+
+    // Constructor for marks with room for the given number of nodes
+    VisitMarks(int nodes) {
+        this.bits = new byte[nodes];
+    }
+
+    // EFFECT: Sets the given bit on the given node
+    void mark(Node n, int bit) {
+        if (n.id >= this.bits.length) {
+            this.bits = Arrays.copyOf(this.bits,
+                Math.max(n.id + 1, this.bits.length * 2));
+        }
+        this.bits[n.id] |= bit;
+    }
+
+    // Does the given node have the given bit set?
+    boolean has(Node n, int bit) {
+        return n.id < this.bits.length && (this.bits[n.id] & bit) != 0;
+    }
+}
 
 abstract class ASolver {
 
+    static final Color START_COLOR = new Color(0, 155, 0); // The first node
+
     ArrayList<Node> worklist = new ArrayList<Node>(); // Always an arraylist,
                                                       // only difference is
                                                       // where we take from
                                                       // (front or end)
     ArrayList<Node> visited = new ArrayList<Node>(); // All the nodes we've seen
                                                      // already
+    VisitMarks marks; // The same nodes, marked with markBit for quick lookup
+    int markBit;
     boolean solved; // Has the maze been solved?
 
     HashMap<Node, Edge> cameFromEdge; // Mapping of what edge each node came
@@ -20,14 +58,42 @@ abstract class ASolver {
 
     ArrayList<Node> finishedPath; // The finished path through the maze
 
+    ArrayList<Node> changedNodes; // Nodes whose color changed since the
+                                  // last frame was drawn
+    ArrayList<Color> changedColors; // The new color of each changed node
+    boolean publishing; // Is a renderer drawing this solver's changes?
+    boolean needsRepaint; // Has so much changed that this solver should be
+                          // drawn again from scratch?
+    Palette palette; // The colors for nodes colored by distance or order
+
+    // Counters kept as the solver steps. They are plain fields, so they may
+    // only be read on the thread stepping this solver, or from another
+    // thread through the SolverMetrics snapshots it hands over (see
+    // metrics and SolverPipeline).
+    int duplicatePushes; // Nodes put on the worklist that were already
+                         // visited when they were put there
+    int peakWorklist; // The most nodes the worklist (or for the fast
+                      // solvers, the frontier) has held at once
+
     // Constructor
     ASolver(Node first) {
+        // A graph built by hand gets ids for the arrays below
+        Node.numberGraph(first);
         this.solved = false;
         this.worklist.add(first);
         this.cameFromEdge = new HashMap<Node, Edge>();
         this.visited = new ArrayList<Node>();
         this.first = first;
         this.finishedPath = new ArrayList<Node>();
+        this.marks = new VisitMarks();
+        this.markBit = 1;
+        this.changedNodes = new ArrayList<Node>();
+        this.changedColors = new ArrayList<Color>();
+        this.publishing = false;
+        this.needsRepaint = false;
+        this.palette = Palette.RAINBOW;
+        this.duplicatePushes = 0;
+        this.peakWorklist = 1;
     }
 
     // Returns the path from the first node in the maze to the end of the maze
@@ -50,7 +116,7 @@ abstract class ASolver {
         while ((curNode != this.first) && path.size() <= visited.size()) {
 
             path.add(curNode);
-            Node neighbor = curNode.getNeighbor(this.cameFromEdge.get(curNode));
+            Node neighbor = curNode.getNeighbor(this.cameFrom(curNode));
             curNode = neighbor;
         }
 
@@ -69,73 +135,187 @@ abstract class ASolver {
         // ticks, but instead on key presses.
     }
 
+    // Can stepping this solver make any more progress? False once it is
+    // solved or has run out of work (Player never steps on its own)
+    boolean canStep() {
+        return !this.solved && !this.worklist.isEmpty();
+    }
+
+    // Steps this solver until it cannot make any more progress. Returns
+    // whether it reached the end.
+    // EFFECT: Steps this solver
+    boolean solve() {
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        int steps = 0;
+        while (this.canStep()) {
+            this.step();
+            steps += 1;
+        }
+        event.finish(this, steps);
+        return this.solved;
+    }
+
+    // How many nodes this solver has visited
+    int nodesExpanded() {
+        return this.visited.size();
+    }
+
+    // The edge the given node was first reached by, or null if it was not
+    Edge cameFrom(Node n) {
+        return this.cameFromEdge.get(n);
+    }
+
+    // How many nodes were put on the worklist after they had been visited
+    int duplicatePushes() {
+        return this.duplicatePushes;
+    }
+
+    // Returns this solver's counters as they are now
+    SolverMetrics metrics() {
+        return new SolverMetrics(this.getClass().getSimpleName(),
+            this.nodesExpanded(), this.duplicatePushes(), this.peakWorklist,
+            this.finishedPath.size(), this.solved);
+    }
+
+    // EFFECT: Puts the given node at the end of the worklist, counting it if
+    // it was already visited and keeping track of the worklist's peak size
+    void push(Node n) {
+        if (this.isVisited(n)) {
+            this.duplicatePushes += 1;
+        }
+        this.worklist.add(n);
+        this.notePeak(this.worklist.size());
+    }
+
+    // EFFECT: Records the given worklist size if it is the largest yet
+    void notePeak(int size) {
+        if (size > this.peakWorklist) {
+            this.peakWorklist = size;
+        }
+    }
+
     // Takes one step through the maze in the given direction,
     void step(String ke) {
         // only implemented in the Player class.
     }
 
+    // Takes one step through the maze in the given direction,
+    void step(Direction d) {
+        // only implemented in the Player class.
+    }
+
+    // EFFECT: Marks the given node as visited, and records its new color
+    void visit(Node n) {
+        this.visited.add(n);
+        this.marks.mark(n, this.markBit);
+        this.paint(n, this.visitedColor(n));
+    }
+
+    // Has this solver visited the given node?
+    boolean isVisited(Node n) {
+        return this.marks.has(n, this.markBit);
+    }
+
+    // EFFECT: Stores the path from the start to the given end node, marks
+    // the maze as solved, and records the path's new color
+    void finish(Node end) {
+        this.reconstruct(end);
+        this.solved = true;
+        for (Node n : this.finishedPath) {
+            this.paint(n, this.pathColor());
+        }
+    }
+
+    // The color a visited node is drawn in
+    Color visitedColor(Node n) {
+        if (n == this.first) {
+            return ASolver.START_COLOR;
+        }
+        return Color.cyan;
+    }
+
+    // The color the finished path is drawn in
+    Color pathColor() {
+        return Color.blue;
+    }
+
+    // EFFECT: Records that the given node is now drawn in the given color,
+    // if anyone is drawing this solver
+    void paint(Node n, Color c) {
+        if (this.publishing) {
+            this.changedNodes.add(n);
+            this.changedColors.add(c);
+        }
+    }
+
+    // EFFECT: Draws every node that changed color since the last time onto
+    // the given painter, and forgets about those changes
+    void flushChanges(CellPainter p) {
+        for (int i = 0; i < this.changedNodes.size(); i += 1) {
+            p.paintCell(this.changedNodes.get(i), this.changedColors.get(i));
+        }
+        this.changedNodes.clear();
+        this.changedColors.clear();
+    }
+
     // Provides jraphics.
-    // Renders this maze onto the given background,
-    // renders the finished path if solved.
-    void renderOnto(WorldScene bg, int size) {
+    // EFFECT: Draws everything this solver has colored onto the given
+    // painter, and from now on records each change so the next frames only
+    // need to draw what changed (see flushChanges)
+    void renderOnto(CellPainter p) {
+        this.publishing = true;
+        this.needsRepaint = false;
+        this.changedNodes.clear();
+        this.changedColors.clear();
+        this.paintAll(p);
+    }
+
+    // EFFECT: Draws every node this solver has colored onto the given
+    // painter, with the finished path on top if solved.
+    void paintAll(CellPainter p) {
         for (Node n : this.visited) {
-            n.renderOnto(bg, size, Color.cyan);
+            p.paintCell(n, this.visitedColor(n));
         }
 
-        this.first.renderOnto(bg, size, new Color(0, 155, 0));
+        p.paintCell(this.first, ASolver.START_COLOR);
 
         if (this.solved) {
             for (Node n : this.finishedPath) {
-                n.renderOnto(bg, size, Color.blue);
+                p.paintCell(n, this.pathColor());
             }
         }
     }
 
-    // Given an integer range (max) and a point within that range (idx),
-    // return the appropriate color from that relative point in the rainbow.
-    Color rainbowColor(int idx, int max) {
+    // Returns the given array, or a longer copy of it if it is too short to
+    // have the given index
+    static int[] fit(int[] arr, int index) {
+        if (index < arr.length) {
+            return arr;
+        }
+        return Arrays.copyOf(arr, Math.max(index + 1, arr.length * 2));
+    }
 
-        if (idx > max || idx < 0 || max < 0) {
-            throw new RuntimeException("Color index out of bounds");
+    // Returns the given array, or a longer copy of it if it is too short to
+    // have the given index
+    static <T> T[] fit(T[] arr, int index) {
+        if (index < arr.length) {
+            return arr;
         }
+        return Arrays.copyOf(arr, Math.max(index + 1, arr.length * 2));
+    }
 
-        double colorIdx = idx / (double) max;
+    // Given an integer range (max) and a point within that range (idx),
+    // return the appropriate color from that relative point in this
+    // solver's palette (the rainbow, unless another one was picked).
+    Color rainbowColor(int idx, int max) {
+        return this.palette.colorAt(idx, max);
+    }
 
-        if (colorIdx < 0.333) {
-            // R constant
-            // B hi to low first half, G low to hi second half
-            if (colorIdx < 0.167) {
-                return new Color(255, 0, 255 - (int) (255 * colorIdx / 0.167));
-            }
-            else {
-                return new Color(255, (int) (255 * (colorIdx - 0.167) / 0.167),
-                    0);
-            }
-        }
-        else if (colorIdx < 0.667) {
-            // G constant
-            // R hi to low first half, B low to hi second half
-            if (colorIdx < 0.5) {
-                return new Color(255 - (int) (255 * (colorIdx - 0.333) / 0.167),
-                    255, 0);
-            }
-            else {
-                return new Color(0, 255,
-                    (int) (255 * (colorIdx - 0.5) / 0.167));
-            }
-        }
-        else {
-            // B constant
-            // G hi to low first half, R low to hi second half
-            if (colorIdx < 0.833) {
-                return new Color(0,
-                    255 - ((int) (255 * (colorIdx - 0.667) / 0.167)), 255);
-            }
-            else {
-                return new Color((int) (255 * (colorIdx - 0.833) / 0.167), 0,
-                    255);
-            }
-        }
+    // EFFECT: Colors this solver with the given palette from now on
+    void usePalette(Palette p) {
+        this.palette = p;
+        this.needsRepaint = true;
     }
 }
 
@@ -157,13 +337,12 @@ class DFSSolver extends ASolver {
 
             Node next = this.worklist.get(this.worklist.size() - 1);
 
-            if (this.visited.contains(next)) {
+            if (this.isVisited(next)) {
                 this.worklist.remove(this.worklist.size() - 1);
             }
             else if (next.isEnd()) {
-                this.visited.add(next);
-                this.reconstruct(next);
-                this.solved = true;
+                this.visit(next);
+                this.finish(next);
 
             }
             else {
@@ -171,13 +350,13 @@ class DFSSolver extends ASolver {
                 for (int i = 0; i < next.nodeEdges.size(); i += 1) {
 
                     Node neighbor = next.getNeighbor(next.nodeEdges.get(i));
-                    this.worklist.add(neighbor);
+                    this.push(neighbor);
 
                     if (!cameFromEdge.containsKey(neighbor)) {
                         cameFromEdge.put(neighbor, next.nodeEdges.get(i));
                     }
                 }
-                this.visited.add(next);
+                this.visit(next);
             }
         }
     }
@@ -201,24 +380,23 @@ class BFSSolver extends ASolver {
 
             Node next = this.worklist.get(0);
 
-            if (this.visited.contains(next)) {
+            if (this.isVisited(next)) {
                 this.worklist.remove(0);
             }
             else if (next.isEnd()) {
-                this.visited.add(next);
-                this.reconstruct(next);
-                this.solved = true;
+                this.visit(next);
+                this.finish(next);
             }
             else {
                 for (int i = 0; i < next.nodeEdges.size(); i += 1) {
                     Node neighbor = next.getNeighbor(next.nodeEdges.get(i));
-                    this.worklist.add(neighbor);
+                    this.push(neighbor);
                     if (!cameFromEdge.containsKey(neighbor)) {
                         cameFromEdge.put(neighbor, next.nodeEdges.get(i));
                     }
                 }
                 this.worklist.remove(0);
-                this.visited.add(next);
+                this.visit(next);
             }
         }
     }
@@ -236,6 +414,9 @@ class SolverFight extends ASolver {
     SolverFight(Node n) {
         super(n);
         this.myBFS = new BFSSolver(n);
+        // Both solvers mark the same nodes, DFS with bit 1 and BFS with bit 2
+        this.myBFS.marks = this.marks;
+        this.myBFS.markBit = 2;
     }
 
     // Takes one step through the solving of the maze.
@@ -250,14 +431,13 @@ class SolverFight extends ASolver {
 
             Node next = this.worklist.get(this.worklist.size() - 1);
 
-            if (this.visited.contains(next)) {
+            if (this.isVisited(next)) {
                 this.worklist.remove(this.worklist.size() - 1);
             }
             else if (next.isEnd()) {
-                this.visited.add(next);
-                this.reconstruct(next);
-                this.solved = true;
                 this.dfsIsSolved = true;
+                this.visit(next);
+                this.finish(next);
 
             }
             else {
@@ -265,52 +445,96 @@ class SolverFight extends ASolver {
                 for (int i = 0; i < next.nodeEdges.size(); i += 1) {
 
                     Node neighbor = next.getNeighbor(next.nodeEdges.get(i));
-                    this.worklist.add(neighbor);
+                    this.push(neighbor);
 
                     if (!cameFromEdge.containsKey(neighbor)) {
                         cameFromEdge.put(neighbor, next.nodeEdges.get(i));
                     }
                 }
-                this.visited.add(next);
+                this.visit(next);
             }
         }
 
+        int bfsVisited = this.myBFS.visited.size();
         this.myBFS.step();
+        if (this.myBFS.visited.size() > bfsVisited) {
+            Node bfsNext = this.myBFS.visited.get(bfsVisited);
+            this.paint(bfsNext, this.visitedColor(bfsNext));
+        }
+        this.notePeak(this.worklist.size() + this.myBFS.worklist.size());
+    }
+
+    // Can either of the fighting solvers make any more progress?
+    @Override
+    boolean canStep() {
+        return !this.solved
+            && (!this.worklist.isEmpty() || this.myBFS.canStep());
     }
 
-    // Provides jraphics. Renders this maze onto the given background,
-    // renders the finished path if solved. Renders both solvers in different
-    // colors and the shared nodes in a third color.
-    void renderOnto(WorldScene bg, int size) {
-        // Draw the DFS visited nodes in one color, and any doubly visited
-        // nodes in a different color
+    // How many nodes the two solvers have visited between them, counting
+    // the ones both visited twice
+    int nodesExpanded() {
+        return this.visited.size() + this.myBFS.visited.size();
+    }
+
+    // How many nodes the two solvers put on their worklists after they had
+    // visited them, between them
+    int duplicatePushes() {
+        return this.duplicatePushes + this.myBFS.duplicatePushes();
+    }
+
+    // The color a node visited by either solver is drawn in: one color
+    // for each solver, and a third for nodes both of them visited
+    Color visitedColor(Node n) {
+        boolean byDFS = this.isVisited(n);
+        boolean byBFS = this.myBFS.isVisited(n);
+
+        if (n == this.first) {
+            return ASolver.START_COLOR;
+        }
+        else if (byDFS && byBFS) {
+            return new Color(178, 102, 255);
+        }
+        else if (byDFS) {
+            return Color.red;
+        }
+        else {
+            return Color.blue;
+        }
+    }
+
+    // The color of the finished path depends on which solver found it
+    Color pathColor() {
+        if (this.dfsIsSolved) {
+            return new Color(153, 0, 0);
+        }
+        return new Color(0, 0, 153);
+    }
+
+    // Provides jraphics. Draws both solvers' visited nodes in different
+    // colors and the shared nodes in a third color, and the finished path
+    // if solved.
+    void paintAll(CellPainter p) {
+        // Draw the DFS visited nodes, shared ones included
         for (Node n : this.visited) {
-            if (this.myBFS.visited.contains(n)) {
-                n.renderOnto(bg, size, new Color(178, 102, 255));
-            }
-            else {
-                n.renderOnto(bg, size, Color.red);
-            }
+            p.paintCell(n, this.visitedColor(n));
         }
-        // Draw any BFS-only visited nodes in a third color
+        // Draw any BFS-only visited nodes
         for (Node n : this.myBFS.visited) {
-            if (!this.visited.contains(n)) {
-                n.renderOnto(bg, size, Color.blue);
+            if (!this.isVisited(n)) {
+                p.paintCell(n, this.visitedColor(n));
             }
         }
 
-        this.first.renderOnto(bg, size, new Color(0, 155, 0));
+        p.paintCell(this.first, ASolver.START_COLOR);
 
         if (this.solved) {
-            if (this.dfsIsSolved) {
-                for (Node n : this.finishedPath) {
-                    n.renderOnto(bg, size, new Color(153, 0, 0));
-                }
+            ArrayList<Node> path = this.finishedPath;
+            if (!this.dfsIsSolved) {
+                path = this.myBFS.finishedPath;
             }
-            else {
-                for (Node n : this.myBFS.finishedPath) {
-                    n.renderOnto(bg, size, new Color(0, 0, 153));
-                }
+            for (Node n : path) {
+                p.paintCell(n, this.pathColor());
             }
         }
     }
@@ -320,202 +544,409 @@ class SolverFight extends ASolver {
 
 }
 
-// A "solver" for mazes that maps each cell to its distance from the start.
-class ColorMazeFromStart extends ASolver {
+// The distance (in steps) of every node in a maze from one source node,
+// stored by node id. Built with a breadth-first search that expands wide
+// frontiers in parallel.
+class DistanceField {
 
-    // Map of nodes to their distances from the start
-    HashMap<Node, Integer> distances = new HashMap<Node, Integer>();
-    int furthestDist;
+    // Frontiers at least this wide are expanded in parallel
+    static final int PARALLEL_FRONTIER = 4096;
 
-    ColorMazeFromStart(Node first) {
-        super(first);
-        distances.put(first, 0);
+    // Lets parallel expansion claim a node's slot in dist exactly once
+    static final VarHandle DIST = MethodHandles
+        .arrayElementVarHandle(int[].class);
+
+    ArrayList<Node> nodes; // The nodes in the maze, indexed by id
+    Node source; // The node all distances are measured from
+    int[] dist; // Distance of each node from the source, -1 if unreachable
+    int furthest; // The largest distance in dist
+    int reached; // How many nodes have a distance
+
+    // Constructor
+    DistanceField(ArrayList<Node> nodes, Node source) {
+        this(nodes, source, DistanceField.PARALLEL_FRONTIER);
     }
 
-    // Maps each node to its distance from the start of the maze
-    // EFFECT: Adds to the map of nodes->distances, changes furthestDist
-    void step() {
+    // Constructor that expands frontiers at least parallelFrontier wide in
+    // parallel
+    DistanceField(ArrayList<Node> nodes, Node source, int parallelFrontier) {
+        this.nodes = nodes;
+        this.source = source;
+        this.dist = new int[nodes.size()];
+        this.furthest = 0;
+        this.reached = 0;
+        this.compute(parallelFrontier);
+    }
 
-        while (!worklist.isEmpty()) {
+    // Returns the distance of the given node from the source
+    int distanceTo(Node n) {
+        return this.dist[n.id];
+    }
 
-            Node cur = this.worklist.remove(0);
-            int curDist = this.distances.get(cur);
-            this.furthestDist = Math.max(this.furthestDist, curDist);
+    // EFFECT: Fills in dist, furthest and reached, one frontier (level) at
+    // a time
+    void compute(int parallelFrontier) {
+        Arrays.fill(this.dist, -1);
+
+        int[] frontier = new int[this.nodes.size()];
+        int[] next = new int[this.nodes.size()];
+        int frontierSize = 1;
+        int level = 0;
+
+        frontier[0] = this.source.id;
+        this.dist[this.source.id] = 0;
+
+        while (frontierSize > 0) {
+            this.reached += frontierSize;
+            int nextSize;
+            if (frontierSize >= parallelFrontier) {
+                nextSize = this.expandParallel(frontier, frontierSize, next,
+                    level + 1);
+            }
+            else {
+                nextSize = this.expand(frontier, 0, frontierSize, next, 0,
+                    level + 1);
+            }
 
-            for (Edge e : cur.nodeEdges) {
+            if (nextSize > 0) {
+                level += 1;
+            }
 
-                Node neighbor = cur.getNeighbor(e);
+            int[] swap = frontier;
+            frontier = next;
+            next = swap;
+            frontierSize = nextSize;
+        }
 
-                if (!this.visited.contains(neighbor)) {
+        this.furthest = level;
+    }
 
-                    this.distances.put(neighbor, curDist + 1);
-                    this.worklist.add(neighbor);
-                    this.visited.add(neighbor);
+    // Expands frontier[from, to) by one step, writing newly reached node ids
+    // into out starting at outStart. Returns how many ids were written.
+    // EFFECT: Sets the distance of every newly reached node to newDist
+    int expand(int[] frontier, int from, int to, int[] out, int outStart,
+        int newDist) {
+        int count = outStart;
+        for (int i = from; i < to; i += 1) {
+            Node cur = this.nodes.get(frontier[i]);
+            for (int j = 0; j < cur.nodeEdges.size(); j += 1) {
+                int neighbor = cur.getNeighbor(cur.nodeEdges.get(j)).id;
+                if (this.dist[neighbor] == -1) {
+                    this.dist[neighbor] = newDist;
+                    out[count] = neighbor;
+                    count += 1;
                 }
             }
         }
-
-        this.solved = true;
+        return count - outStart;
     }
 
-    // Render all nodes onto bg, with nodes colored by their distances
-    void renderOnto(WorldScene bg, int size) {
+    // Expands the frontier by one step, splitting it into chunks that are
+    // expanded on separate threads. Returns the size of the new frontier.
+    // EFFECT: Sets the distance of every newly reached node to newDist
+    int expandParallel(int[] frontier, int frontierSize, int[] out,
+        int newDist) {
+        int chunks = Math.min(Runtime.getRuntime().availableProcessors() * 4,
+            frontierSize);
+        int chunkSize = (frontierSize + chunks - 1) / chunks;
+        AtomicInteger outSize = new AtomicInteger(0);
+
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int from = c * chunkSize;
+            int to = Math.min(from + chunkSize, frontierSize);
+            // Each node has at most 4 neighbors
+            int[] found = new int[Math.max(0, to - from) * 4];
+            int count = 0;
+
+            for (int i = from; i < to; i += 1) {
+                Node cur = this.nodes.get(frontier[i]);
+                for (int j = 0; j < cur.nodeEdges.size(); j += 1) {
+                    int neighbor = cur.getNeighbor(cur.nodeEdges.get(j)).id;
+                    if (DistanceField.DIST.compareAndSet(this.dist, neighbor,
+                        -1, newDist)) {
+                        found[count] = neighbor;
+                        count += 1;
+                    }
+                }
+            }
+
+            int start = outSize.getAndAdd(count);
+            System.arraycopy(found, 0, out, start, count);
+        });
 
-        for (Node n : this.visited) {
-            int nDist = this.distances.get(n);
-            n.renderOnto(bg, size, this.rainbowColor(nDist, this.furthestDist));
-        }
+        return outSize.get();
     }
-
 }
 
-class StepColorer extends ASolver {
+// A "solver" for mazes that colors each cell by its distance from the start.
+// The distances themselves are computed (once) by the maze.
+class ColorMazeFromStart extends ASolver {
 
-    // each step thru maze track the
-    ArrayList<ArrayList<Node>> allPaths;
-    HashMap<Node, Integer> distances;
+    DistanceField distances; // Each node's distance from the start
     int furthestDist;
 
-    StepColorer(Node first) {
+    ColorMazeFromStart(Node first, DistanceField distances) {
         super(first);
-        allPaths = new ArrayList<ArrayList<Node>>();
-        ArrayList<Node> startPath = new ArrayList<Node>();
-        startPath.add(first);
-        allPaths.add(startPath);
-        this.furthestDist = 0;
-        this.distances = new HashMap<Node, Integer>();
-        this.distances.put(first, this.furthestDist);
+        this.distances = distances;
     }
 
-    // Takes one step through the solving of the maze.
-    // This involves taking one step through each path in this.allPaths
-    // Called every time onTick is called until the maze is solved
-    // EFFECT: allPaths is updated every time, solved and finishedPath changed
-    // on final tick
+    // Picks up the furthest distance from the already computed distances
+    // EFFECT: Changes furthestDist, marks this solver as solved
     void step() {
-        for (int i = 0; i < this.allPaths.size(); i++) {
-
-            ArrayList<Node> path = this.allPaths.get(i);
-
-            if (path.size() != 0) {
-                Node next = path.get(0);
-
-                if (this.visited.contains(next)) {
-                    path.remove(0);
-                }
-                else if (next.isEnd()) {
-                    this.visited.add(next);
-                    this.furthestDist += 1;
-                    this.distances.put(next, this.furthestDist);
-                    this.reconstruct(next);
-                    this.solved = true;
-                }
-                else {
+        this.furthestDist = this.distances.furthest;
+        this.solved = true;
+    }
 
-                    Node neighbor0 = next.getNeighbor(next.nodeEdges.get(0));
+    // How many nodes were reached while computing the distances
+    int nodesExpanded() {
+        return this.distances.reached;
+    }
 
-                    path.add(neighbor0);
-                    if (!cameFromEdge.containsKey(neighbor0)) {
-                        cameFromEdge.put(neighbor0, next.nodeEdges.get(0));
-                    }
-                    for (int j = 1; j < next.nodeEdges.size(); j += 1) {
-                        Node neighbor = next.getNeighbor(next.nodeEdges.get(j));
-                        ArrayList<Node> newPath = new ArrayList<Node>();
-                        newPath.add(neighbor);
-                        allPaths.add(newPath);
-                        i = i + 1;
-                        if (!cameFromEdge.containsKey(neighbor)) {
-                            cameFromEdge.put(neighbor, next.nodeEdges.get(j));
-                        }
-                    }
+    // EFFECT: Draws all reachable nodes onto p, colored by their distances
+    void paintAll(CellPainter p) {
 
-                    path.remove(0);
-                    this.visited.add(next);
-                    this.furthestDist += 1;
-                    this.distances.put(next, this.furthestDist);
-                }
+        for (Node n : this.distances.nodes) {
+            int nDist = this.distances.distanceTo(n);
+            if (nDist >= 0) {
+                p.paintCell(n, this.rainbowColor(nDist, this.furthestDist));
             }
         }
     }
 
-    // Provides graphics. Renders this maze onto the given background,
-    // renders the finished path if solved.
-    void renderOnto(WorldScene bg, int size) {
-        for (Node n : this.visited) {
-            n.renderOnto(bg, size,
-                this.rainbowColor(this.distances.get(n), this.furthestDist));
-        }
+}
 
-        this.first.renderOnto(bg, size, new Color(0, 155, 0));
+// The front of every path a FastBFSSolver is following, stored as parallel
+// arrays: the node at the head of each path, the path's id, and how many
+// steps from the start that node is. Entries for the next step are written
+// into a second set of arrays that is swapped in by advance(), so paths that
+// die out are simply not copied over and no memory is spent on them.
+class PathFrontier {
+
+    Node[] cells; // The node at the head of each live path
+    int[] pathIds; // The id of each live path
+    int[] depths; // The distance of each head node from the start
+    int size; // How many live paths there are
+
+    Node[] nextCells; // The heads of the paths for the next step
+    int[] nextPathIds;
+    int[] nextDepths;
+    int nextSize;
+
+    int pathsStarted; // How many path ids have been handed out
+
+    // Constructor: a single path sitting at the start node
+    PathFrontier(Node start) {
+        this.cells = new Node[16];
+        this.pathIds = new int[16];
+        this.depths = new int[16];
+        this.nextCells = new Node[16];
+        this.nextPathIds = new int[16];
+        this.nextDepths = new int[16];
+
+        this.cells[0] = start;
+        this.pathIds[0] = 0;
+        this.depths[0] = 0;
+        this.size = 1;
+        this.nextSize = 0;
+        this.pathsStarted = 1;
+    }
 
-        if (this.solved) {
-            for (Node n : this.finishedPath) {
-                n.renderOnto(bg, size, new Color(210, 192, 192));
-            }
+    // Returns the id for a new path branching off an existing one
+    // EFFECT: Counts the new path
+    int newPathId() {
+        this.pathsStarted += 1;
+        return this.pathsStarted - 1;
+    }
+
+    // EFFECT: Adds the given node as the head of the given path for the next
+    // step, growing the next step's arrays if they are full
+    void push(Node n, int pathId, int depth) {
+        if (this.nextSize == this.nextCells.length) {
+            int capacity = this.nextCells.length * 2;
+            this.nextCells = Arrays.copyOf(this.nextCells, capacity);
+            this.nextPathIds = Arrays.copyOf(this.nextPathIds, capacity);
+            this.nextDepths = Arrays.copyOf(this.nextDepths, capacity);
         }
-        // To not show the finished path, make solved false? unless that
-        // conflicts with something else like in onTick.
+        this.nextCells[this.nextSize] = n;
+        this.nextPathIds[this.nextSize] = pathId;
+        this.nextDepths[this.nextSize] = depth;
+        this.nextSize += 1;
+    }
+
+    // EFFECT: Makes the paths pushed since the last advance the live paths,
+    // and reuses the old arrays for the step after
+    void advance() {
+        Node[] oldCells = this.cells;
+        int[] oldPathIds = this.pathIds;
+        int[] oldDepths = this.depths;
+
+        this.cells = this.nextCells;
+        this.pathIds = this.nextPathIds;
+        this.depths = this.nextDepths;
+        this.size = this.nextSize;
+
+        this.nextCells = oldCells;
+        this.nextPathIds = oldPathIds;
+        this.nextDepths = oldDepths;
+        this.nextSize = 0;
     }
 }
 
 // A fast breadth-first solver (all paths searched simultaneously) for mazes
 class FastBFSSolver extends ASolver {
 
-    ArrayList<ArrayList<Node>> allPaths;
+    PathFrontier frontier; // The head of every path still being followed
+    Edge[] parentEdges; // The edge each node was first reached by, by node id
 
+    // Constructor
     FastBFSSolver(Node first) {
+        this(first, 16);
+    }
+
+    // Constructor for a maze with the given number of nodes, so that
+    // nothing kept per node has to grow while solving
+    FastBFSSolver(Node first, int nodes) {
         super(first);
-        allPaths = new ArrayList<ArrayList<Node>>();
-        ArrayList<Node> startPath = new ArrayList<Node>();
-        startPath.add(first);
-        allPaths.add(startPath);
+        this.frontier = new PathFrontier(first);
+        this.parentEdges = new Edge[nodes];
+        this.visited = new ArrayList<Node>(nodes);
+        this.marks = new VisitMarks(nodes);
     }
 
     // Takes one step through the solving of the maze.
-    // This involves taking one step through each path in this.allPaths
+    // This involves taking one step along every live path in this.frontier;
+    // a path ends when it reaches a dead end or runs into a visited node,
+    // and branches into new paths at every junction.
     // Called every time onTick is called until the maze is solved
-    // EFFECT: allPaths is updated every time, solved and finishedPath changed
-    // on final tick
+    // EFFECT: frontier is updated every time, solved and finishedPath
+    // changed on final tick
     void step() {
+        PathFrontier f = this.frontier;
 
-        for (int i = 0; i < this.allPaths.size(); i++) {
+        for (int i = 0; i < f.size && !this.solved; i += 1) {
 
-            ArrayList<Node> path = this.allPaths.get(i);
+            Node next = f.cells[i];
 
-            if (path.size() != 0) {
-                Node next = path.get(0);
+            if (this.isVisited(next)) {
+                // Another path got here first, this path is done
+                continue;
+            }
+            else if (next.isEnd()) {
+                this.visit(next);
+                this.finish(next);
+            }
+            else {
+                int pathId = f.pathIds[i];
+                boolean continued = false;
 
-                if (this.visited.contains(next)) {
-                    path.remove(0);
-                }
-                else if (next.isEnd()) {
-                    this.visited.add(next);
-                    this.reconstruct(next);
-                    this.solved = true;
-                }
-                else {
+                for (int j = 0; j < next.nodeEdges.size(); j += 1) {
+                    Edge e = next.nodeEdges.get(j);
+                    Node neighbor = next.getNeighbor(e);
 
-                    Node neighbor0 = next.getNeighbor(next.nodeEdges.get(0));
-                    path.add(neighbor0);
-                    if (!cameFromEdge.containsKey(neighbor0)) {
-                        cameFromEdge.put(neighbor0, next.nodeEdges.get(0));
+                    if (this.isVisited(neighbor)) {
+                        continue;
                     }
-                    for (int j = 1; j < next.nodeEdges.size(); j += 1) {
-                        Node neighbor = next.getNeighbor(next.nodeEdges.get(j));
-                        ArrayList<Node> newPath = new ArrayList<Node>();
-                        newPath.add(neighbor);
-                        allPaths.add(newPath);
-                        i = i + 1;
-                        if (!cameFromEdge.containsKey(neighbor)) {
-                            cameFromEdge.put(neighbor, next.nodeEdges.get(j));
-                        }
+                    this.parentEdges =
+                        ASolver.fit(this.parentEdges, neighbor.id);
+                    if (this.parentEdges[neighbor.id] == null) {
+                        this.parentEdges[neighbor.id] = e;
+                    }
+                    // The first way out continues this path, any others
+                    // branch off into new paths
+                    if (continued) {
+                        f.push(neighbor, f.newPathId(), f.depths[i] + 1);
+                    }
+                    else {
+                        f.push(neighbor, pathId, f.depths[i] + 1);
+                        continued = true;
                     }
-
-                    path.remove(0);
-                    this.visited.add(next);
                 }
+
+                this.visit(next);
             }
         }
+
+        if (!this.solved) {
+            f.advance();
+            this.notePeak(f.size);
+        }
+    }
+
+    // Can stepping make any more progress? (Is any path still going?)
+    @Override
+    boolean canStep() {
+        return !this.solved && this.frontier.size != 0;
+    }
+
+    // The edge the given node was first reached by, or null if it was not
+    @Override
+    Edge cameFrom(Node n) {
+        if (n.id < this.parentEdges.length) {
+            return this.parentEdges[n.id];
+        }
+        return null;
+    }
+}
+
+// A fast breadth-first solver that colors the maze by the order the cells
+// were visited in while it solves
+class StepColorer extends FastBFSSolver {
+
+    int[] visitOrder; // The order each node was visited in, by node id
+    int furthestDist; // How many nodes have been visited
+    int colorScale; // The visit order drawn as the end of the rainbow. Only
+                    // changes (doubles) when furthestDist passes it, so
+                    // nodes do not all change color every step
+
+    // Constructor
+    StepColorer(Node first) {
+        this(first, 16);
+    }
+
+    // Constructor for a maze with the given number of nodes
+    StepColorer(Node first, int nodes) {
+        super(first, nodes);
+        this.furthestDist = 0;
+        this.visitOrder = new int[nodes];
+        this.colorScale = 256;
+    }
+
+    // EFFECT: Marks the given node as visited, and records when it was
+    @Override
+    void visit(Node n) {
+        this.furthestDist += 1;
+        this.visitOrder = ASolver.fit(this.visitOrder, n.id);
+        this.visitOrder[n.id] = this.furthestDist;
+
+        if (this.furthestDist > this.colorScale) {
+            this.colorScale *= 2;
+            this.needsRepaint = true;
+        }
+        super.visit(n);
+    }
+
+    // EFFECT: Solves the maze, and stretches the rainbow over exactly the
+    // nodes that were visited
+    @Override
+    void finish(Node end) {
+        super.finish(end);
+        this.colorScale = this.furthestDist;
+        this.needsRepaint = true;
+    }
+
+    // Visited nodes are colored by when they were visited
+    @Override
+    Color visitedColor(Node n) {
+        if (n == this.first) {
+            return ASolver.START_COLOR;
+        }
+        return this.rainbowColor(this.visitOrder[n.id], this.colorScale);
+    }
+
+    // The finished path is drawn in a pale color over the rainbow
+    @Override
+    Color pathColor() {
+        return new Color(210, 192, 192);
     }
 }
 
@@ -535,29 +966,54 @@ class Player extends ASolver {
     // onto the end node of the maze, reconstructs the path to the start
     // and marks the maze as solved (changes this.solved to true).
     void step(String ke) {
+        Direction d = Direction.fromKey(ke);
+
+        if (d != null) {
+            this.step(d);
+        }
+    }
+
+    // Move a step in the given direction in the maze, if possible.
+    // EFFECT: Same as step(String), with the direction already known
+    void step(Direction d) {
 
-        if (this.loc.hasNodeInDir(ke)) {
-            Node newLoc = this.loc.getNodeInDir(ke);
-            Edge connectingEdge = this.loc.getNeighborEdge(newLoc);
+        Edge connectingEdge = this.loc.getEdgeInDir(d);
+
+        if (connectingEdge != null) {
+            Node newLoc = this.loc.getNeighbor(connectingEdge);
+            Node oldLoc = this.loc;
 
             this.loc = newLoc;
 
-            if (!this.visited.contains(newLoc)) {
-                this.visited.add(newLoc);
+            if (!this.isVisited(newLoc)) {
+                this.visit(newLoc);
                 this.cameFromEdge.put(newLoc, connectingEdge);
             }
+            // Moving off of the finished path would have to redraw it
+            if (this.solved) {
+                this.needsRepaint = true;
+            }
+            else {
+                this.paint(oldLoc, this.visitedColor(oldLoc));
+            }
             if (newLoc.isEnd()) {
-                this.reconstruct(newLoc);
-                this.solved = true;
+                this.finish(newLoc);
             }
+            this.paint(newLoc, Color.black);
         }
     }
 
-    // Renders the maze onto the background normally, draws this player on top
-    void renderOnto(WorldScene bg, int size) {
-        super.renderOnto(bg, size);
+    // A player only moves on key presses, never on its own
+    @Override
+    boolean canStep() {
+        return false;
+    }
 
-        this.loc.renderOnto(bg, size, Color.black);
+    // EFFECT: Draws the maze onto p normally, draws this player on top
+    void paintAll(CellPainter p) {
+        super.paintAll(p);
+
+        p.paintCell(this.loc, Color.black);
     }
 }
 
@@ -615,6 +1071,54 @@ class ExamplesSolver {
 
     }
 
+    void testHandBuiltGraph(Tester t) {
+        // Not made by a maze: just two nodes and the edge between them
+        Node start = new Node(0, 0);
+        Node end = new EndNode(1, 0);
+        t.checkExpect(start.id, -1);
+        t.checkExpect(end.id, -1);
+        Edge e = new Edge(5);
+        e.setN1(start);
+        e.setN2(end);
+        start.addEdge(e);
+        end.addEdge(e);
+
+        // The first solver numbers the graph's nodes from 0
+        BFSSolver b = new BFSSolver(start);
+        t.checkExpect(start.id, 0);
+        t.checkExpect(end.id, 1);
+        t.checkExpect(b.solve(), true);
+        t.checkExpect(b.getFinishedPath(), new ArrayList<Node>(
+            Arrays.asList(end, start)));
+        DFSSolver d = new DFSSolver(start);
+        t.checkExpect(d.solve(), true);
+        t.checkExpect(d.getFinishedPath(), new ArrayList<Node>(
+            Arrays.asList(end, start)));
+        t.checkExpect(new FastBFSSolver(start).solve(), true);
+        t.checkExpect(start.id, 0);
+        t.checkExpect(end.id, 1);
+
+        // Another graph is numbered on its own, so its solvers' arrays stay
+        // as small as the graph
+        Node other = new Node(5, 5);
+        Node otherEnd = new EndNode(5, 6);
+        Edge e2 = new Edge(1);
+        e2.setN1(other);
+        e2.setN2(otherEnd);
+        other.addEdge(e2);
+        otherEnd.addEdge(e2);
+        FastBFSSolver f = new FastBFSSolver(other);
+        t.checkExpect(f.solve(), true);
+        t.checkExpect(other.id, 0);
+        t.checkExpect(otherEnd.id, 1);
+        t.checkExpect(f.marks.bits.length, 16);
+        t.checkExpect(f.parentEdges.length, 16);
+
+        t.checkConstructorException(
+            new RuntimeException("A node's id can't be negative"), "Node", 0,
+            0, -1);
+    }
+
     void testGetFinishedPath(Tester t) {
 
         this.init();
@@ -774,6 +1278,213 @@ class ExamplesSolver {
 
     }
 
+    void testDistanceField(Tester t) {
+        this.init();
+        DistanceField d = new DistanceField(m.mazeNodes, m.mazeNodes.get(0));
+        BFSSolver b = new BFSSolver(m.mazeNodes.get(0));
+        while (!b.solved) {
+            b.step();
+        }
+
+        t.checkExpect(d.distanceTo(m.mazeNodes.get(0)), 0);
+        t.checkExpect(d.distanceTo(m.endNode),
+            b.getFinishedPath().size() - 1);
+        // Every node is reachable, and neighbors are exactly one step apart
+        for (Node n : m.mazeNodes) {
+            t.checkExpect(d.distanceTo(n) >= 0, true);
+            t.checkExpect(d.distanceTo(n) <= d.furthest, true);
+            for (Edge e : n.nodeEdges) {
+                t.checkExpect(
+                    Math.abs(d.distanceTo(n) - d.distanceTo(n.getNeighbor(e))),
+                    1);
+            }
+        }
+        t.checkExpect(d.reached, m.mazeNodes.size());
+
+        // Walling the end off leaves it unreached, along with any nodes
+        // only reachable through it
+        for (Edge e : m.endNode.nodeEdges) {
+            Node neighbor = m.endNode.getNeighbor(e);
+            ArrayList<Edge> kept = new ArrayList<Edge>(neighbor.nodeEdges);
+            kept.remove(e);
+            neighbor.filterEdges(kept);
+        }
+        m.endNode.filterEdges(new ArrayList<Edge>());
+        DistanceField cut = new DistanceField(m.mazeNodes, m.mazeNodes.get(0));
+        int reachable = 0;
+        for (Node n : m.mazeNodes) {
+            if (cut.distanceTo(n) >= 0) {
+                reachable += 1;
+            }
+        }
+        t.checkExpect(cut.distanceTo(m.endNode), -1);
+        t.checkExpect(reachable < m.mazeNodes.size(), true);
+        t.checkExpect(cut.reached, reachable);
+        t.checkExpect(
+            new ColorMazeFromStart(m.mazeNodes.get(0), cut).nodesExpanded(),
+            reachable);
+    }
+
+    void testParallelDistanceField(Tester t) {
+        Maze big = new Maze(60, 40);
+        big.initMaze();
+        // A maze with every edge left in, so its frontiers get wide
+        Maze grid = new Maze(60, 40);
+        grid.randomEdges();
+
+        for (Maze mz : Arrays.asList(big, grid)) {
+            DistanceField seq = new DistanceField(mz.mazeNodes,
+                mz.mazeNodes.get(0), Integer.MAX_VALUE);
+            DistanceField par = new DistanceField(mz.mazeNodes,
+                mz.mazeNodes.get(0), 1);
+            t.checkExpect(par.dist, seq.dist);
+            t.checkExpect(par.furthest, seq.furthest);
+            t.checkExpect(par.reached, seq.reached);
+        }
+        // On the full grid the distance is just how far across and down
+        DistanceField gridDist = new DistanceField(grid.mazeNodes,
+            grid.mazeNodes.get(0), 1);
+        t.checkExpect(gridDist.distanceTo(grid.endNode), 59 + 39);
+    }
+
+    void testColorMazeFromStart(Tester t) {
+        this.init();
+        ColorMazeFromStart c = new ColorMazeFromStart(m.mazeNodes.get(0),
+            m.distancesFromStart());
+        t.checkExpect(c.solved, false);
+        c.step();
+        t.checkExpect(c.solved, true);
+        t.checkExpect(c.furthestDist, m.distancesFromStart().furthest);
+        t.checkExpect(c.furthestDist > 0, true);
+    }
+
+    void testPathFrontier(Tester t) {
+        this.init();
+        PathFrontier f = new PathFrontier(n1);
+
+        t.checkExpect(f.size, 1);
+        t.checkExpect(f.cells[0], n1);
+        t.checkExpect(f.depths[0], 0);
+
+        f.push(n2, f.pathIds[0], 1);
+        f.push(n4, f.newPathId(), 1);
+        t.checkExpect(f.size, 1);
+        f.advance();
+        t.checkExpect(f.size, 2);
+        t.checkExpect(f.cells[1], n4);
+        t.checkExpect(f.pathIds[0], 0);
+        t.checkExpect(f.pathIds[1], 1);
+        t.checkExpect(f.depths[1], 1);
+
+        // Paths that are not pushed again are gone after advancing
+        f.push(n3, f.pathIds[0], 2);
+        f.advance();
+        t.checkExpect(f.size, 1);
+        t.checkExpect(f.cells[0], n3);
+        f.advance();
+        t.checkExpect(f.size, 0);
+
+        // The arrays grow once the frontier gets wider than they are
+        for (int i = 0; i < 40; i += 1) {
+            f.push(n5, f.newPathId(), 3);
+        }
+        f.advance();
+        t.checkExpect(f.size, 40);
+        t.checkExpect(f.cells.length >= 40, true);
+        t.checkExpect(f.pathsStarted, 42);
+    }
+
+    void testFastFrontierStaysNarrow(Tester t) {
+        Maze big = new Maze(30, 20);
+        big.initMaze();
+        FastBFSSolver f = new FastBFSSolver(big.mazeNodes.get(0));
+        int widest = 0;
+
+        while (!f.solved) {
+            f.step();
+            widest = Math.max(widest, f.frontier.size);
+            // Only paths that are still going are kept
+            for (int i = 0; i < f.frontier.size && !f.solved; i += 1) {
+                t.checkExpect(f.visited.contains(f.frontier.cells[i]), false);
+            }
+        }
+        // The arrays are only as big as the widest frontier needed them to be
+        t.checkExpect(f.frontier.cells.length <= Math.max(16, widest * 2),
+            true);
+    }
+
+    void testVisitMarks(Tester t) {
+        this.init();
+        VisitMarks v = new VisitMarks();
+        Node far = new Node(0, 0, 100);
+
+        t.checkExpect(v.has(m.mazeNodes.get(2), 1), false);
+        v.mark(m.mazeNodes.get(2), 1);
+        t.checkExpect(v.has(m.mazeNodes.get(2), 1), true);
+        t.checkExpect(v.has(m.mazeNodes.get(2), 2), false);
+        v.mark(m.mazeNodes.get(2), 2);
+        t.checkExpect(v.has(m.mazeNodes.get(2), 1), true);
+        t.checkExpect(v.has(m.mazeNodes.get(2), 2), true);
+
+        // Marks grow to fit whatever node ids they are given
+        t.checkExpect(v.has(far, 1), false);
+        v.mark(far, 2);
+        t.checkExpect(v.has(far, 2), true);
+        t.checkExpect(v.bits.length > 100, true);
+    }
+
+    void testFightSharesMarks(Tester t) {
+        this.init();
+        SolverFight f = new SolverFight(m.mazeNodes.get(0));
+        t.checkExpect(f.myBFS.marks == f.marks, true);
+
+        while (!f.solved) {
+            f.step();
+        }
+        // Each solver's marks agree with its own list of visited nodes
+        for (Node n : m.mazeNodes) {
+            t.checkExpect(f.isVisited(n), f.visited.contains(n));
+            t.checkExpect(f.myBFS.isVisited(n), f.myBFS.visited.contains(n));
+        }
+        // and the colors come from both at once
+        Node start = m.mazeNodes.get(0);
+        t.checkExpect(f.visitedColor(start), ASolver.START_COLOR);
+        for (Node n : f.visited) {
+            if (n != start && f.myBFS.isVisited(n)) {
+                t.checkExpect(f.visitedColor(n), new Color(178, 102, 255));
+            }
+            else if (n != start) {
+                t.checkExpect(f.visitedColor(n), Color.red);
+            }
+        }
+    }
+
+    void testSolveAndCount(Tester t) {
+        Maze maze = new Maze(15, 10, 3);
+        maze.initMaze();
+        Node start = maze.mazeNodes.get(0);
+
+        DFSSolver d = new DFSSolver(start);
+        t.checkExpect(d.nodesExpanded(), 0);
+        t.checkExpect(d.solve(), true);
+        t.checkExpect(d.canStep(), false);
+        t.checkExpect(d.nodesExpanded(), d.visited.size());
+
+        SolverFight f = new SolverFight(start);
+        t.checkExpect(f.solve(), true);
+        t.checkExpect(f.nodesExpanded(),
+            f.visited.size() + f.myBFS.visited.size());
+
+        // Every node of a maze can be reached from its start
+        ColorMazeFromStart c = new ColorMazeFromStart(start,
+            maze.distancesFromStart());
+        t.checkExpect(c.solve(), true);
+        t.checkExpect(c.nodesExpanded(), 150);
+
+        // A player never moves by itself
+        t.checkExpect(new Player(start).solve(), false);
+    }
+
     void testPlayerStep(Tester t) {
 
         this.init();
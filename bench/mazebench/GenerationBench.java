@@ -0,0 +1,108 @@
+package mazebench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Measures each phase of maze generation on its own, and all of initMaze,
+// for mazes from 10x10 up to 200x200. Every maze comes from the same seed,
+// so each size is measured on the same maze every time. Run with -prof gc
+// for allocation rates (see README).
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class GenerationBench {
+
+    static final long SEED = 20180215L;
+
+    // A maze with some number of the generation phases already run on it,
+    // made fresh before every call so each call runs its phase from scratch
+    @State(Scope.Thread)
+    public abstract static class Prepared {
+
+        // Making a maze is still quadratic, and every call first redoes the
+        // phases before it, so bigger sizes take hours. Ask for them with
+        // -p size=500x500,1000x1000,2000x2000
+        @Param({ "10x10", "100x60", "200x200" })
+        public String size;
+
+        public Object maze;
+
+        // How many phases to run before measuring
+        abstract int phasesDone();
+
+        @Setup(Level.Invocation)
+        public void prepare() {
+            this.maze = MazeAccess.generatedUpTo(this.size,
+                GenerationBench.SEED, this.phasesDone());
+        }
+    }
+
+    public static class Fresh extends Prepared {
+        int phasesDone() {
+            return 0;
+        }
+    }
+
+    public static class WithEdges extends Prepared {
+        int phasesDone() {
+            return 1;
+        }
+    }
+
+    public static class Sorted extends Prepared {
+        int phasesDone() {
+            return 2;
+        }
+    }
+
+    public static class WithReps extends Prepared {
+        int phasesDone() {
+            return 3;
+        }
+    }
+
+    public static class WithTree extends Prepared {
+        int phasesDone() {
+            return 4;
+        }
+    }
+
+    @Benchmark
+    public Object randomEdges(Fresh s) {
+        MazeAccess.run(MazeAccess.RANDOM_EDGES, s.maze);
+        return s.maze;
+    }
+
+    @Benchmark
+    public Object sortEdges(WithEdges s) {
+        MazeAccess.run(MazeAccess.SORT_EDGES, s.maze);
+        return s.maze;
+    }
+
+    @Benchmark
+    public Object initReps(Sorted s) {
+        MazeAccess.run(MazeAccess.INIT_REPS, s.maze);
+        return s.maze;
+    }
+
+    @Benchmark
+    public Object createSpanningTree(WithReps s) {
+        MazeAccess.run(MazeAccess.CREATE_SPANNING_TREE, s.maze);
+        return s.maze;
+    }
+
+    @Benchmark
+    public Object onlySpanningEdges(WithTree s) {
+        MazeAccess.run(MazeAccess.ONLY_SPANNING_EDGES, s.maze);
+        return s.maze;
+    }
+
+    // All of initMaze, on a fresh maze
+    @Benchmark
+    public Object initMaze(Fresh s) {
+        MazeAccess.run(MazeAccess.INIT_MAZE, s.maze);
+        return s.maze;
+    }
+}
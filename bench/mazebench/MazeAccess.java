@@ -0,0 +1,208 @@
+package mazebench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+
+// The maze classes are in the default package, which code in a named package
+// (as JMH requires benchmarks to be) cannot name. These method handles reach
+// them by reflection instead. Every call made through them does far more work
+// than going through a handle costs, so they do not skew the measurements.
+final class MazeAccess {
+
+    static final Class<?> MAZE = MazeAccess.find("Maze");
+    static final Class<?> NODE = MazeAccess.find("Node");
+    static final Class<?> SOLVER = MazeAccess.find("ASolver");
+    static final Class<?> DISTANCES = MazeAccess.find("DistanceField");
+
+    static final MethodHandle NEW_MAZE = MazeAccess.constructor(MAZE,
+        int.class, int.class, long.class);
+    static final MethodHandle RANDOM_EDGES = MazeAccess.method(MAZE,
+        "randomEdges");
+    static final MethodHandle SORT_EDGES = MazeAccess.method(MAZE,
+        "sortEdges");
+    static final MethodHandle INIT_REPS = MazeAccess.method(MAZE, "initReps");
+    static final MethodHandle CREATE_SPANNING_TREE = MazeAccess.method(MAZE,
+        "createSpanningTree");
+    static final MethodHandle ONLY_SPANNING_EDGES = MazeAccess.method(MAZE,
+        "onlySpanningEdges");
+    static final MethodHandle INIT_MAZE = MazeAccess.method(MAZE, "initMaze");
+
+    static final MethodHandle MAZE_NODES = MazeAccess.getter(MAZE,
+        "mazeNodes");
+    static final MethodHandle NEW_DISTANCES = MazeAccess.constructor(
+        DISTANCES, java.util.ArrayList.class, NODE);
+    static final MethodHandle SOLVE = MazeAccess.method(SOLVER, "solve");
+    static final MethodHandle NODES_EXPANDED = MazeAccess.method(SOLVER,
+        "nodesExpanded");
+    static final MethodHandle DUPLICATE_PUSHES = MazeAccess.method(SOLVER,
+        "duplicatePushes");
+    static final MethodHandle PEAK_WORKLIST = MazeAccess.getter(SOLVER,
+        "peakWorklist");
+
+    // The generation phases, in the order initMaze runs them
+    static final MethodHandle[] PHASES = { RANDOM_EDGES, SORT_EDGES,
+        INIT_REPS, CREATE_SPANNING_TREE, ONLY_SPANNING_EDGES };
+
+    private MazeAccess() {
+    }
+
+    // Returns a new, not yet generated maze of the given size (as "WxH")
+    // whose shape comes from the given seed
+    static Object newMaze(String size, long seed) {
+        String[] parts = size.split("x");
+        try {
+            return NEW_MAZE.invoke(Integer.parseInt(parts[0]),
+                Integer.parseInt(parts[1]), seed);
+        }
+        catch (Throwable t) {
+            throw MazeAccess.rethrow(t);
+        }
+    }
+
+    // EFFECT: Runs the given phase (or all of initMaze) on the given maze
+    static void run(MethodHandle phase, Object maze) {
+        try {
+            phase.invoke(maze);
+        }
+        catch (Throwable t) {
+            throw MazeAccess.rethrow(t);
+        }
+    }
+
+    // Returns a new maze of the given size and seed with the first given
+    // number of generation phases already run on it
+    static Object generatedUpTo(String size, long seed, int phases) {
+        Object maze = MazeAccess.newMaze(size, seed);
+        for (int i = 0; i < phases; i += 1) {
+            MazeAccess.run(PHASES[i], maze);
+        }
+        return maze;
+    }
+
+    // Returns a new solver of the given kind (a subclass of ASolver) for
+    // the given generated maze, starting at its first node.
+    // ColorMazeFromStart is made from the distance of every node from the
+    // start, so those are worked out first, as part of making it.
+    static Object newSolver(MethodHandle make, boolean needsDistances,
+        Object maze) {
+        try {
+            List<?> nodes = (List<?>) MAZE_NODES.invoke(maze);
+            Object start = nodes.get(0);
+            if (needsDistances) {
+                return make.invoke(start, NEW_DISTANCES.invoke(nodes, start));
+            }
+            return make.invoke(start);
+        }
+        catch (Throwable t) {
+            throw MazeAccess.rethrow(t);
+        }
+    }
+
+    // Returns a handle on the constructor of the given kind of solver
+    static MethodHandle solverConstructor(String kind) {
+        if (MazeAccess.needsDistances(kind)) {
+            return MazeAccess.constructor(MazeAccess.find(kind), NODE,
+                DISTANCES);
+        }
+        return MazeAccess.constructor(MazeAccess.find(kind), NODE);
+    }
+
+    // Is the given kind of solver made from precomputed distances?
+    static boolean needsDistances(String kind) {
+        return kind.equals("ColorMazeFromStart");
+    }
+
+    // Steps the given solver to the end. Returns how many nodes it
+    // expanded on the way.
+    static int solve(Object solver) {
+        try {
+            SOLVE.invoke(solver);
+            return (int) NODES_EXPANDED.invoke(solver);
+        }
+        catch (Throwable t) {
+            throw MazeAccess.rethrow(t);
+        }
+    }
+
+    // Returns one of the given solver's counters, read through the given
+    // handle
+    static int count(MethodHandle counter, Object solver) {
+        try {
+            return (int) counter.invoke(solver);
+        }
+        catch (Throwable t) {
+            throw MazeAccess.rethrow(t);
+        }
+    }
+
+    // Returns a handle that reads the given field of the given class
+    static MethodHandle getter(Class<?> cls, String name) {
+        try {
+            Field f = cls.getDeclaredField(name);
+            f.setAccessible(true);
+            return MethodHandles.lookup().unreflectGetter(f);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Returns the class of the given name from the default package
+    static Class<?> find(String name) {
+        try {
+            return Class.forName(name);
+        }
+        catch (ClassNotFoundException e) {
+            throw new RuntimeException("Maze classes are not on the class path",
+                e);
+        }
+    }
+
+    // Returns a handle on the given class's constructor with the given
+    // parameter types
+    static MethodHandle constructor(Class<?> cls, Class<?>... params) {
+        try {
+            Constructor<?> c = cls.getDeclaredConstructor(params);
+            c.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(c);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Returns a handle on the given class's method of the given name and
+    // parameter types, which may be declared by a superclass
+    static MethodHandle method(Class<?> cls, String name,
+        Class<?>... params) {
+        for (Class<?> c = cls; c != null; c = c.getSuperclass()) {
+            try {
+                Method m = c.getDeclaredMethod(name, params);
+                m.setAccessible(true);
+                return MethodHandles.lookup().unreflect(m);
+            }
+            catch (NoSuchMethodException e) {
+                // Look in the superclass
+            }
+            catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        throw new RuntimeException("No method " + name + " in " + cls);
+    }
+
+    // Returns the given throwable as an unchecked exception to throw
+    static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new RuntimeException(t);
+    }
+}
@@ -0,0 +1,79 @@
+package mazebench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Times every kind of solver from the start of a seeded maze to its end, on
+// mazes of increasing size. Alongside the time per solve, reports how many
+// nodes the solves expanded, how many visited nodes they pushed onto their
+// worklists again, and how big their worklists got, as totals with the
+// number of solves to divide them by; run with -prof gc for the
+// bytes each solve allocates (gc.alloc.rate.norm). Each measured call makes
+// a new solver and solves with it, so its time and allocation are all of
+// one solve.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SolverBench {
+
+    // A generated maze, shared by every call of one trial
+    @State(Scope.Benchmark)
+    public static class Solving {
+
+        @Param({ "DFSSolver", "BFSSolver", "FastBFSSolver", "StepColorer",
+            "ColorMazeFromStart", "SolverFight" })
+        public String solver;
+
+        @Param({ "10x10", "100x60", "250x250", "500x500" })
+        public String size;
+
+        Object maze;
+        MethodHandle make;
+        boolean needsDistances;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            this.maze = MazeAccess.generatedUpTo(this.size,
+                GenerationBench.SEED, MazeAccess.PHASES.length);
+            this.make = MazeAccess.solverConstructor(this.solver);
+            this.needsDistances = MazeAccess.needsDistances(this.solver);
+        }
+    }
+
+    // Totals of the nodes expanded, the visited nodes pushed again and the
+    // peak worklist sizes over every measured solve, and how many solves
+    // there were. JMH adds EVENTS counters up across iterations, so only
+    // totals come out right: divide each by solves for its value per solve.
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Expanded {
+
+        public long nodesExpanded;
+        public long duplicatePushes;
+        public long peakWorklist;
+        public long solves;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.nodesExpanded = 0;
+            this.duplicatePushes = 0;
+            this.peakWorklist = 0;
+            this.solves = 0;
+        }
+    }
+
+    @Benchmark
+    public Object solve(Solving s, Expanded e) {
+        Object solver = MazeAccess.newSolver(s.make, s.needsDistances,
+            s.maze);
+        e.nodesExpanded += MazeAccess.solve(solver);
+        e.duplicatePushes += MazeAccess.count(MazeAccess.DUPLICATE_PUSHES,
+            solver);
+        e.peakWorklist += MazeAccess.count(MazeAccess.PEAK_WORKLIST, solver);
+        e.solves += 1;
+        return solver;
+    }
+}